@@ -10,29 +10,19 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-import dev.lone.itemsadder.api.ItemsAdder;
-import io.lumine.xikage.mythicmobs.MythicMobs;
-import io.lumine.xikage.mythicmobs.util.jnbt.CompoundTag;
-import io.th0rgal.oraxen.items.OraxenItems;
 import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.custom_items.api_references.*;
 import me.wolfyscript.utilities.api.custom_items.custom_data.CustomData;
 import me.wolfyscript.utilities.api.utils.inventory.InventoryUtils;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.AbstractItemBuilder;
-import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
 import me.wolfyscript.utilities.api.utils.json.jackson.JacksonUtil;
-import me.wolfyscript.utilities.main.WUPlugin;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataContainer;
-import org.bukkit.persistence.PersistentDataType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -88,6 +78,9 @@ public class CustomItem extends AbstractItemBuilder<CustomItem> implements Clone
     private ParticleContent particleContent;
     private MetaSettings metaSettings;
 
+    private MatchPlan matchPlan;
+    private ItemTemplate template;
+
     /**
      * Creates a CustomItem with a Vanilla Reference to the itemstack
      *
@@ -142,47 +135,18 @@ public class CustomItem extends AbstractItemBuilder<CustomItem> implements Clone
 
     /**
      * Get the CustomItem via ItemStack.
-     * It checks for the PersistentData containing the NamespacedKey of WolfyUtilities.
-     * When that isn't found it checks for ItemsAdder and Oraxen values saved in the Items NBT.
+     * It uses the registered {@link APIReferenceResolver}s to detect the plugin the item is from.
+     * If none of them matches, the item is linked as a vanilla item.
      *
      * @param itemStack the ItemStack to check
      * @return the CustomItem linked to the specific API this Item is from.
      */
     public static CustomItem getReferenceByItemStack(ItemStack itemStack) {
         if (itemStack != null) {
-            ItemMeta itemMeta = itemStack.getItemMeta();
-            if (itemMeta != null) {
-                PersistentDataContainer container = itemMeta.getPersistentDataContainer();
-                APIReference apiReference = null;
-                NamespacedKey namespacedKey = new NamespacedKey(WUPlugin.getInstance(), "custom_item");
-                if (container.has(namespacedKey, PersistentDataType.STRING)) {
-                    apiReference = new WolfyUtilitiesRef(me.wolfyscript.utilities.api.utils.NamespacedKey.getByString(container.get(namespacedKey, PersistentDataType.STRING)));
-                }
-                if (apiReference == null) {
-                    if (WolfyUtilities.hasPlugin("ItemsAdder")) {
-                        if (ItemsAdder.isCustomItem(itemStack)) {
-                            apiReference = new ItemsAdderRef(ItemsAdder.getCustomItemName(itemStack));
-                        }
-                    } else if (WolfyUtilities.hasPlugin("Oraxen")) {
-                        String itemId = OraxenItems.getIdByItem(itemStack);
-                        if (itemId != null && !itemId.isEmpty()) {
-                            apiReference = new OraxenRef(itemId);
-                        }
-                    } else if (WolfyUtilities.hasPlugin("MythicMobs")) {
-                        if (MythicMobs.inst().getVolatileCodeHandler().getItemHandler() != null) {
-                            CompoundTag compoundTag = MythicMobs.inst().getVolatileCodeHandler().getItemHandler().getNBTData(itemStack);
-                            String name = compoundTag.getString("MYTHIC_TYPE");
-                            if (MythicMobs.inst().getItemManager().getItem(name).isPresent()) {
-                                apiReference = new MythicMobsRef(name);
-                            }
-                        }
-                    }
-                }
-                if (apiReference != null) {
-                    apiReference.setAmount(itemStack.getAmount());
-                    return new CustomItem(apiReference);
-                }
-                return new CustomItem(itemStack);
+            APIReference apiReference = APIReferenceResolvers.resolve(itemStack);
+            if (apiReference != null) {
+                apiReference.setAmount(itemStack.getAmount());
+                return new CustomItem(apiReference);
             }
             return new CustomItem(itemStack);
         }
@@ -203,17 +167,7 @@ public class CustomItem extends AbstractItemBuilder<CustomItem> implements Clone
      */
     @org.jetbrains.annotations.Nullable
     public static CustomItem getByItemStack(ItemStack itemStack) {
-        if (itemStack != null) {
-            ItemMeta itemMeta = itemStack.getItemMeta();
-            if (itemMeta != null) {
-                PersistentDataContainer container = itemMeta.getPersistentDataContainer();
-                NamespacedKey namespacedKey = new NamespacedKey(WUPlugin.getInstance(), "custom_item");
-                if (container.has(namespacedKey, PersistentDataType.STRING)) {
-                    return CustomItems.getCustomItem(me.wolfyscript.utilities.api.utils.NamespacedKey.getByString(container.get(namespacedKey, PersistentDataType.STRING)));
-                }
-            }
-        }
-        return null;
+        return CustomItemResolver.getCustomItem(itemStack);
     }
 
     public boolean hasReplacement() {
@@ -360,16 +314,78 @@ public class CustomItem extends AbstractItemBuilder<CustomItem> implements Clone
      * @return true if the ItemStack is equal to this CustomItems ItemStack
      */
     public boolean isSimilar(ItemStack otherItem, boolean exactMeta) {
-        ItemStack currentItem = create();
         if (otherItem == null) return false;
-        if (otherItem == currentItem) return true;
-        if (otherItem.getType().equals(currentItem.getType()) && otherItem.getAmount() >= currentItem.getAmount()) {
-            if (!exactMeta && !currentItem.hasItemMeta()) return true;
-            ItemBuilder customItem = new ItemBuilder(currentItem);
-            ItemBuilder customItemOther = new ItemBuilder(otherItem.clone());
-            return getMetaSettings().checkMeta(customItemOther, customItem) && Bukkit.getItemFactory().equals(customItem.getItemMeta(), customItemOther.getItemMeta());
+        return getMatchPlan().matches(otherItem, exactMeta);
+    }
+
+    /**
+     * Gets the compiled plan used by {@link #isSimilar(ItemStack, boolean)}.
+     * It is only compiled again if the template was rebuilt or the amount, the NamespacedKey or the MetaSettings changed.
+     * The linked item is only checked by {@link #getTemplate()}, so it is hashed at most once per check.
+     *
+     * @return the current MatchPlan of this CustomItem
+     */
+    MatchPlan getMatchPlan() {
+        ItemTemplate itemTemplate = getTemplate();
+        int amount = apiReference.getCustomAmount() > 0 ? apiReference.getCustomAmount() : itemTemplate.getLinkedItem().getAmount();
+        MatchPlan plan = matchPlan;
+        if (plan == null || !plan.isValid(itemTemplate, amount, namespacedKey, metaSettings)) {
+            plan = new MatchPlan(itemTemplate, amount, namespacedKey, itemTemplate.create(amount), metaSettings);
+            matchPlan = plan;
         }
-        return false;
+        return plan;
+    }
+
+    /**
+     * Gets the template that the items are cloned from.
+     * If the linked item is from another plugin, it is only rebuilt when the plugin reloaded its items (see {@link LinkedItemCache}).
+     * If it is another CustomItem, it is only rebuilt when the template of that CustomItem changed.
+     *
+     * @return the current ItemTemplate of this CustomItem
+     */
+    private ItemTemplate getTemplate() {
+        ItemTemplate itemTemplate = template;
+        String pluginName = apiReference.getPluginName();
+        if (pluginName != null) {
+            int generation = LinkedItemCache.getGeneration(pluginName);
+            if (itemTemplate != null && itemTemplate.isValid(generation, namespacedKey)) {
+                LinkedItemCache.recordHit();
+                return itemTemplate;
+            }
+            LinkedItemCache.recordMiss();
+            ItemStack linkedItem = apiReference.getLinkedItem();
+            itemTemplate = new ItemTemplate(linkedItem, generation, namespacedKey);
+            //Items that don't exist (yet) are not cached, as the plugin might not have loaded them.
+            if (!linkedItem.getType().equals(Material.AIR)) {
+                template = itemTemplate;
+            }
+            return itemTemplate;
+        }
+        if (apiReference instanceof WolfyUtilitiesRef) {
+            //The linked item is a new copy each time, so the template of the referenced CustomItem is checked instead.
+            //It is looked up in the current snapshot, so the template is rebuilt once the CustomItem is replaced or changed its linked item.
+            CustomItem target = CustomItems.getCustomItem(((WolfyUtilitiesRef) apiReference).getNamespacedKey());
+            if (target != null && target != this) {
+                ItemTemplate source = target.getTemplate();
+                if (itemTemplate != null && itemTemplate.isValid(source, namespacedKey)) {
+                    LinkedItemCache.recordHit();
+                    return itemTemplate;
+                }
+                LinkedItemCache.recordMiss();
+                itemTemplate = new ItemTemplate(source.create(target.getApiReference().getCustomAmount()), source, namespacedKey);
+                template = itemTemplate;
+                return itemTemplate;
+            }
+        }
+        ItemStack linkedItem = apiReference.getLinkedItem();
+        if (itemTemplate != null && itemTemplate.isValid(linkedItem, namespacedKey)) {
+            LinkedItemCache.recordHit();
+            return itemTemplate;
+        }
+        LinkedItemCache.recordMiss();
+        itemTemplate = new ItemTemplate(linkedItem, -1, namespacedKey);
+        template = itemTemplate;
+        return itemTemplate;
     }
 
     @Override
@@ -446,7 +462,8 @@ public class CustomItem extends AbstractItemBuilder<CustomItem> implements Clone
      * @return the item from the external API that is linked to this object
      */
     public ItemStack create() {
-        return create(getAmount());
+        //A custom amount of 0 keeps the amount of the linked item.
+        return getTemplate().create(apiReference.getCustomAmount());
     }
 
     /**
@@ -456,16 +473,7 @@ public class CustomItem extends AbstractItemBuilder<CustomItem> implements Clone
      * @return the item from the external API that is linked to this object
      */
     public ItemStack create(int amount) {
-        ItemStack itemStack = apiReference.getLinkedItem().clone();
-        if (this.hasNamespacedKey()) {
-            ItemMeta itemMeta = itemStack.getItemMeta();
-            itemMeta.getPersistentDataContainer().set(new org.bukkit.NamespacedKey(WUPlugin.getInstance(), "custom_item"), PersistentDataType.STRING, namespacedKey.toString());
-            itemStack.setItemMeta(itemMeta);
-        }
-        if (amount > 0) {
-            itemStack.setAmount(amount);
-        }
-        return itemStack;
+        return getTemplate().create(amount);
     }
 
     /**
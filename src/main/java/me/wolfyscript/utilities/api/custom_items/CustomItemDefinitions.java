@@ -0,0 +1,316 @@
+package me.wolfyscript.utilities.api.custom_items;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import me.wolfyscript.utilities.api.utils.json.jackson.JacksonUtil;
+import me.wolfyscript.utilities.main.WUPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The lazy mode of the CustomItem registry.
+ * <p>
+ * Instead of deserializing a CustomItem at startup, only its NamespacedKey and the location of its JSON are registered.
+ * The CustomItem is deserialized the first time it is requested via {@link CustomItems#getCustomItem(NamespacedKey)} and is then added to the registry like any other CustomItem.
+ * <p>
+ * The items that were loaded in a session are saved in the order they were first needed, so {@link #warmUp(Plugin, int, int)} can load the most used ones in the background on the next startup.
+ * <p>
+ * Keep in mind that the {@link CustomItems.Snapshot} only contains the already loaded CustomItems. Use {@link #getKeys()} to get the ones that are not loaded yet.
+ */
+public class CustomItemDefinitions {
+
+    private static final Map<NamespacedKey, Definition> definitions = new ConcurrentHashMap<>();
+    private static final Queue<NamespacedKey> loadOrder = new ConcurrentLinkedQueue<>();
+
+    private CustomItemDefinitions() {
+    }
+
+    /**
+     * Registers the location of the CustomItem, which is only deserialized once it is requested.
+     * If a CustomItem is already registered under the NamespacedKey, it is removed.
+     *
+     * @param namespacedKey the NamespacedKey the CustomItem will be saved under
+     * @param file          the JSON file that contains the CustomItem
+     * @param path          the path of the CustomItem in the JSON, separated by '.' or null if it is the root
+     */
+    public static void register(NamespacedKey namespacedKey, File file, @Nullable String path) {
+        CustomItems.removeCustomItem(namespacedKey);
+        definitions.put(namespacedKey, new Definition(namespacedKey, file, path));
+        //The id might have been cached as unresolved before it was registered.
+        CustomItemResolver.invalidate(namespacedKey);
+    }
+
+    /**
+     * Removes the definition, if the CustomItem wasn't loaded yet.
+     *
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     * @return true if the definition was removed
+     */
+    public static boolean unregister(NamespacedKey namespacedKey) {
+        if (definitions.remove(namespacedKey) != null) {
+            CustomItemResolver.invalidate(namespacedKey);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     * @return true if the CustomItem is registered, but not loaded yet
+     */
+    public static boolean isDefined(NamespacedKey namespacedKey) {
+        return definitions.containsKey(namespacedKey);
+    }
+
+    /**
+     * @return the NamespacedKeys of the CustomItems that are not loaded yet
+     */
+    public static Set<NamespacedKey> getKeys() {
+        return Collections.unmodifiableSet(definitions.keySet());
+    }
+
+    /**
+     * @return the amount of CustomItems that are not loaded yet
+     */
+    public static int size() {
+        return definitions.size();
+    }
+
+    /**
+     * Deserializes the CustomItem and adds it to the registry.
+     * If multiple threads request the same CustomItem, it is only deserialized once.
+     *
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     * @return the loaded CustomItem or null if it isn't defined or couldn't be loaded
+     */
+    @Nullable
+    static CustomItem load(NamespacedKey namespacedKey) {
+        Definition definition = definitions.get(namespacedKey);
+        if (definition != null) {
+            CustomItem customItem;
+            try {
+                customItem = definition.get();
+            } catch (IOException e) {
+                //The definition is kept, so the item is loaded again the next time it is requested.
+                Bukkit.getLogger().warning("[WU] Couldn't load the CustomItem " + namespacedKey + " from " + definition.file.getPath() + ": " + e.getMessage());
+                return CustomItems.getSnapshot().get(namespacedKey);
+            }
+            if (customItem != null) {
+                //The definition is only removed while the CustomItem is published, so an item that was added or replaced in the meantime isn't overridden.
+                CustomItems.update(Collections.singletonMap(namespacedKey, customItem), key -> {
+                    if (definitions.remove(key, definition)) {
+                        loadOrder.add(key);
+                        return true;
+                    }
+                    return false;
+                });
+            } else {
+                definitions.remove(namespacedKey, definition);
+            }
+        }
+        return CustomItems.getSnapshot().get(namespacedKey);
+    }
+
+    /**
+     * Loads all the CustomItems that are not loaded yet.
+     */
+    public static void loadAll() {
+        load(new ArrayList<>(definitions.values()), 256);
+    }
+
+    /**
+     * Loads the most used CustomItems of the last session in the background.
+     * The items are deserialized on an async thread and added to the registry in batches.
+     *
+     * @param plugin    the plugin that runs the task
+     * @param limit     the maximum amount of CustomItems to load or a negative value to load all of them, starting with the most used ones
+     * @param batchSize the amount of CustomItems that are added to the registry at once
+     */
+    public static void warmUp(Plugin plugin, int limit, int batchSize) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            LinkedHashSet<Definition> ordered = new LinkedHashSet<>();
+            for (NamespacedKey namespacedKey : readUsage()) {
+                Definition definition = definitions.get(namespacedKey);
+                if (definition != null) {
+                    ordered.add(definition);
+                }
+            }
+            if (limit < 0) {
+                ordered.addAll(definitions.values());
+            }
+            List<Definition> list = new ArrayList<>(ordered);
+            if (limit >= 0 && list.size() > limit) {
+                list = list.subList(0, limit);
+            }
+            long start = System.currentTimeMillis();
+            int loaded = load(list, Math.max(1, batchSize));
+            Bukkit.getLogger().info("[WU] Loaded " + loaded + " CustomItems in the background (" + (System.currentTimeMillis() - start) + "ms)");
+        });
+    }
+
+    /**
+     * Loads the definitions and adds them to the registry in batches.
+     * The definitions are grouped by their file, so each file is only parsed once, even if it contains multiple CustomItems.
+     */
+    private static int load(List<Definition> list, int batchSize) {
+        Map<File, List<Definition>> files = new LinkedHashMap<>();
+        for (Definition definition : list) {
+            files.computeIfAbsent(definition.file, file -> new ArrayList<>()).add(definition);
+        }
+        int loaded = 0;
+        Map<NamespacedKey, CustomItem> batch = new HashMap<>();
+        Map<NamespacedKey, Definition> batchDefinitions = new HashMap<>();
+        for (Map.Entry<File, List<Definition>> entry : files.entrySet()) {
+            JsonNode root;
+            try {
+                root = JacksonUtil.getObjectMapper().readTree(entry.getKey());
+            } catch (IOException e) {
+                //The definitions are kept, so the items are loaded again the next time they are requested.
+                Bukkit.getLogger().warning("[WU] Couldn't load the CustomItems from " + entry.getKey().getPath() + ": " + e.getMessage());
+                continue;
+            }
+            for (Definition definition : entry.getValue()) {
+                CustomItem customItem;
+                try {
+                    customItem = definition.get(root);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (customItem == null) {
+                    definitions.remove(definition.namespacedKey, definition);
+                    continue;
+                }
+                batch.put(definition.namespacedKey, customItem);
+                batchDefinitions.put(definition.namespacedKey, definition);
+                if (batch.size() >= batchSize) {
+                    loaded += publish(batch, batchDefinitions);
+                }
+            }
+        }
+        return loaded + publish(batch, batchDefinitions);
+    }
+
+    private static int publish(Map<NamespacedKey, CustomItem> batch, Map<NamespacedKey, Definition> batchDefinitions) {
+        int[] published = {0};
+        CustomItems.update(batch, key -> {
+            if (definitions.remove(key, batchDefinitions.get(key))) {
+                loadOrder.add(key);
+                published[0]++;
+                return true;
+            }
+            return false;
+        });
+        batch.clear();
+        batchDefinitions.clear();
+        return published[0];
+    }
+
+    private static File getUsageFile() {
+        return new File(WUPlugin.getInstance().getDataFolder(), "custom_item_usage.json");
+    }
+
+    private static List<NamespacedKey> readUsage() {
+        List<NamespacedKey> keys = new ArrayList<>();
+        File file = getUsageFile();
+        if (file.exists()) {
+            try {
+                for (JsonNode node : JacksonUtil.getObjectMapper().readTree(file)) {
+                    NamespacedKey namespacedKey = NamespacedKey.getByString(node.asText());
+                    if (namespacedKey != null) {
+                        keys.add(namespacedKey);
+                    }
+                }
+            } catch (IOException e) {
+                Bukkit.getLogger().warning("[WU] Couldn't read the usage of the CustomItems: " + e.getMessage());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Saves the CustomItems that were loaded in this session in the order they were first needed.
+     * Items that were used in the last session, but not in this one, are kept at the end.
+     */
+    static void saveUsage() {
+        if (loadOrder.isEmpty()) return;
+        LinkedHashSet<String> keys = new LinkedHashSet<>();
+        for (NamespacedKey namespacedKey : loadOrder) {
+            keys.add(namespacedKey.toString());
+        }
+        for (NamespacedKey namespacedKey : readUsage()) {
+            keys.add(namespacedKey.toString());
+        }
+        try {
+            JacksonUtil.getObjectWriter(false).writeValue(getUsageFile(), keys);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class Definition {
+
+        private final NamespacedKey namespacedKey;
+        private final File file;
+        private final String[] path;
+        private boolean loaded = false;
+        private CustomItem customItem = null;
+
+        private Definition(NamespacedKey namespacedKey, File file, @Nullable String path) {
+            this.namespacedKey = namespacedKey;
+            this.file = file;
+            this.path = path == null || path.isEmpty() ? new String[0] : path.split("\\.");
+        }
+
+        /**
+         * @return the CustomItem, which is only deserialized the first time, or null if it couldn't be loaded
+         * @throws IOException if the file couldn't be read, in which case the next call tries it again
+         */
+        @Nullable
+        private CustomItem get() throws IOException {
+            return get(null);
+        }
+
+        /**
+         * @param root the already parsed JSON of the file or null to read the file
+         * @return the CustomItem, which is only deserialized the first time, or null if it couldn't be loaded
+         * @throws IOException if the file couldn't be read, in which case the next call tries it again
+         */
+        @Nullable
+        private synchronized CustomItem get(@Nullable JsonNode root) throws IOException {
+            if (!loaded) {
+                JsonNode node = root != null ? root : JacksonUtil.getObjectMapper().readTree(file);
+                loaded = true;
+                customItem = deserialize(node);
+                if (customItem != null) {
+                    customItem.setNamespacedKey(namespacedKey);
+                }
+            }
+            return customItem;
+        }
+
+        @Nullable
+        private CustomItem deserialize(JsonNode root) {
+            try {
+                JsonNode node = root;
+                for (String key : path) {
+                    node = node.path(key);
+                }
+                if (node.isMissingNode() || node.isNull()) {
+                    Bukkit.getLogger().warning("[WU] Couldn't find the CustomItem " + namespacedKey + " in " + file.getPath());
+                    return null;
+                }
+                return JacksonUtil.getObjectMapper().convertValue(node, CustomItem.class);
+            } catch (IllegalArgumentException e) {
+                Bukkit.getLogger().warning("[WU] Couldn't load the CustomItem " + namespacedKey + " from " + file.getPath() + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+}
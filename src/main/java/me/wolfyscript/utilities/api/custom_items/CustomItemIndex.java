@@ -0,0 +1,184 @@
+package me.wolfyscript.utilities.api.custom_items;
+
+import me.wolfyscript.utilities.api.utils.LongObjectHashMap;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+
+/**
+ * An index of candidate CustomItems to match whole inventories in one pass.
+ * <p>
+ * The candidates are bucketed by their Material and, if their custom model data is checked exactly, by their custom model data.
+ * Each slot is then only checked against the candidates of its bucket via {@link CustomItem#isSimilar(ItemStack, boolean)}.
+ * <p>
+ * The index is built from the state of the candidates at construction.
+ * If the item of a candidate changes afterwards, a new index must be created.
+ */
+public class CustomItemIndex {
+
+    /**
+     * The result for slots that don't match any candidate.
+     */
+    public static final int NO_MATCH = -1;
+
+    private static final long NO_MODEL_DATA = Long.MIN_VALUE;
+    private static final int[] EMPTY = new int[0];
+
+    private final CustomItem[] candidates;
+    private final EnumMap<Material, Bucket> buckets = new EnumMap<>(Material.class);
+
+    public CustomItemIndex(Collection<CustomItem> candidates) {
+        this.candidates = candidates.toArray(new CustomItem[0]);
+        HashMap<Material, List<Integer>> unindexed = new HashMap<>();
+        HashMap<Material, LongObjectHashMap<List<Integer>>> indexed = new HashMap<>();
+        for (int i = 0; i < this.candidates.length; i++) {
+            MatchPlan plan = this.candidates[i].getMatchPlan();
+            if (plan.isCustomModelDataChecked()) {
+                Integer modelData = plan.getCustomModelData();
+                LongObjectHashMap<List<Integer>> byModelData = indexed.computeIfAbsent(plan.getType(), material -> new LongObjectHashMap<>());
+                long key = modelData != null ? modelData : NO_MODEL_DATA;
+                List<Integer> indices = byModelData.get(key);
+                if (indices == null) {
+                    indices = new ArrayList<>();
+                    byModelData.put(key, indices);
+                }
+                indices.add(i);
+            } else {
+                unindexed.computeIfAbsent(plan.getType(), material -> new ArrayList<>()).add(i);
+            }
+        }
+        Set<Material> materials = new HashSet<>(unindexed.keySet());
+        materials.addAll(indexed.keySet());
+        for (Material material : materials) {
+            Bucket bucket = new Bucket(toArray(unindexed.get(material)));
+            LongObjectHashMap<List<Integer>> byModelData = indexed.get(material);
+            if (byModelData != null) {
+                byModelData.forEach((key, indices) -> bucket.byModelData.put(key, toArray(indices)));
+            }
+            buckets.put(material, bucket);
+        }
+    }
+
+    private static int[] toArray(List<Integer> indices) {
+        if (indices == null) return EMPTY;
+        int[] array = new int[indices.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = indices.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return the amount of candidates in this index
+     */
+    public int size() {
+        return candidates.length;
+    }
+
+    /**
+     * @param index the index of the candidate, as returned by the match methods
+     * @return the candidate at the index
+     */
+    public CustomItem getCandidate(int index) {
+        return candidates[index];
+    }
+
+    /**
+     * Matches the contents of the inventory against the candidates.
+     *
+     * @param inventory the inventory to match
+     * @return the candidate index for each slot or {@link #NO_MATCH}
+     * @see #match(ItemStack[], boolean)
+     */
+    public int[] match(Inventory inventory) {
+        return match(inventory.getContents(), true);
+    }
+
+    public int[] match(ItemStack[] items) {
+        return match(items, true);
+    }
+
+    /**
+     * Matches each of the items against the candidates.
+     * If multiple candidates match an item, the one that came first in the candidate collection is used.
+     *
+     * @param items     the items to match, which may contain null
+     * @param exactMeta if the ItemMeta should be checked (see {@link CustomItem#isSimilar(ItemStack, boolean)})
+     * @return an array with the same length as the items, that contains the index of the matching candidate or {@link #NO_MATCH}
+     */
+    public int[] match(ItemStack[] items, boolean exactMeta) {
+        int[] result = new int[items.length];
+        for (int slot = 0; slot < items.length; slot++) {
+            result[slot] = match(items[slot], exactMeta);
+        }
+        return result;
+    }
+
+    /**
+     * Matches the item against the candidates.
+     *
+     * @param itemStack the item to match
+     * @param exactMeta if the ItemMeta should be checked (see {@link CustomItem#isSimilar(ItemStack, boolean)})
+     * @return the index of the first matching candidate or {@link #NO_MATCH}
+     */
+    public int match(ItemStack itemStack, boolean exactMeta) {
+        if (itemStack == null) return NO_MATCH;
+        Bucket bucket = buckets.get(itemStack.getType());
+        if (bucket == null) return NO_MATCH;
+        int[] indexed = EMPTY;
+        if (!bucket.byModelData.isEmpty()) {
+            long key = NO_MODEL_DATA;
+            if (itemStack.hasItemMeta()) {
+                ItemMeta itemMeta = itemStack.getItemMeta();
+                if (itemMeta != null && itemMeta.hasCustomModelData()) {
+                    key = itemMeta.getCustomModelData();
+                }
+            }
+            int[] indices = bucket.byModelData.get(key);
+            if (indices != null) {
+                indexed = indices;
+            }
+        }
+        int[] unindexed = bucket.unindexed;
+        //Both arrays are sorted, so merging them keeps the order of the candidates.
+        int i = 0;
+        int j = 0;
+        while (i < indexed.length || j < unindexed.length) {
+            int index = j >= unindexed.length || (i < indexed.length && indexed[i] < unindexed[j]) ? indexed[i++] : unindexed[j++];
+            if (candidates[index].isSimilar(itemStack, exactMeta)) {
+                return index;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * Matches the contents of the inventory and maps the slots to the matching candidates.
+     *
+     * @param inventory the inventory to match
+     * @return a map of the slots that match a candidate
+     */
+    public Map<Integer, CustomItem> matchSlots(Inventory inventory) {
+        int[] matches = match(inventory);
+        Map<Integer, CustomItem> slots = new HashMap<>();
+        for (int slot = 0; slot < matches.length; slot++) {
+            if (matches[slot] != NO_MATCH) {
+                slots.put(slot, candidates[matches[slot]]);
+            }
+        }
+        return slots;
+    }
+
+    private static class Bucket {
+
+        private final int[] unindexed;
+        private final LongObjectHashMap<int[]> byModelData = new LongObjectHashMap<>();
+
+        private Bucket(int[] unindexed) {
+            this.unindexed = unindexed;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package me.wolfyscript.utilities.api.custom_items;
+
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import me.wolfyscript.utilities.api.utils.inventory.ItemNBTUtils;
+import me.wolfyscript.utilities.main.WUPlugin;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves the CustomItem of an ItemStack from the id that is saved in its persistent data.
+ * <p>
+ * On CraftBukkit based servers the id is read directly from the NBT of the item, so the ItemMeta doesn't need to be cloned.
+ * If that isn't possible, it falls back to the ItemMeta.
+ * <p>
+ * The resolved ids are kept in a bounded cache, which is invalidated when the CustomItem of the id changes.
+ * The CustomItems are only weakly referenced, so the cache doesn't prevent removed items from being garbage collected.
+ */
+public class CustomItemResolver {
+
+    private static final int CACHE_SIZE = 1024;
+
+    private static final org.bukkit.NamespacedKey ID_KEY = new org.bukkit.NamespacedKey(WUPlugin.getInstance(), "custom_item");
+    private static final String ID_KEY_STRING = ID_KEY.toString();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    //The entries are cached under the raw id of the item. Ids that differ from their parsed key (e.g. in upper case) are also tracked by that key, so they can be invalidated.
+    private static final Map<String, Set<String>> aliases = new HashMap<>();
+    private static final Map<String, CacheEntry> cache = new LinkedHashMap<String, CacheEntry>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            if (size() > CACHE_SIZE) {
+                removeAlias(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    static {
+        CustomItems.registerChangeListener((version, namespacedKey, oldItem, newItem) -> invalidate(namespacedKey));
+    }
+
+    private CustomItemResolver() {
+    }
+
+    /**
+     * @return the key under which the id of the CustomItem is saved in the persistent data of the ItemStack
+     */
+    public static org.bukkit.NamespacedKey getIdKey() {
+        return ID_KEY;
+    }
+
+    /**
+     * Reads the id of the CustomItem that is saved in the ItemStack.
+     *
+     * @param itemStack the ItemStack
+     * @return the id of the CustomItem or null if the ItemStack has none
+     */
+    @Nullable
+    public static String getId(@Nullable ItemStack itemStack) {
+        if (itemStack == null || !itemStack.hasItemMeta()) return null;
+        if (ItemNBTUtils.isAccessible(itemStack)) {
+            return ItemNBTUtils.getString(itemStack, ItemNBTUtils.PUBLIC_BUKKIT_VALUES, ID_KEY_STRING);
+        }
+        ItemMeta itemMeta = itemStack.getItemMeta();
+        return itemMeta != null ? itemMeta.getPersistentDataContainer().get(ID_KEY, PersistentDataType.STRING) : null;
+    }
+
+    /**
+     * Resolves the NamespacedKey of the CustomItem that is saved in the ItemStack.
+     * This doesn't check if the CustomItem is registered.
+     *
+     * @param itemStack the ItemStack
+     * @return the NamespacedKey or null if the ItemStack has no valid id
+     */
+    @Nullable
+    public static NamespacedKey getNamespacedKey(@Nullable ItemStack itemStack) {
+        String id = getId(itemStack);
+        if (id == null) return null;
+        CacheEntry entry = getEntry(id);
+        return entry != null ? entry.namespacedKey : null;
+    }
+
+    /**
+     * Resolves the registered CustomItem that is saved in the ItemStack.
+     *
+     * @param itemStack the ItemStack
+     * @return the CustomItem or null if the ItemStack has no id or the CustomItem isn't registered
+     */
+    @Nullable
+    public static CustomItem getCustomItem(@Nullable ItemStack itemStack) {
+        String id = getId(itemStack);
+        if (id == null) return null;
+        CacheEntry entry = getEntry(id);
+        return entry != null ? entry.getCustomItem() : null;
+    }
+
+    @Nullable
+    private static CacheEntry getEntry(String id) {
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(id);
+        }
+        if (entry != null && entry.isValid()) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        NamespacedKey namespacedKey;
+        try {
+            namespacedKey = NamespacedKey.getByString(id);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+        if (namespacedKey == null) return null;
+        CustomItems.Snapshot snapshot = CustomItems.getSnapshot();
+        CustomItem customItem = CustomItems.getCustomItem(namespacedKey);
+        entry = new CacheEntry(namespacedKey, customItem);
+        synchronized (cache) {
+            //Only cache the entry if the registry didn't change in the meantime, otherwise it might already be outdated.
+            //An item that is still defined couldn't be loaded right now, so it is tried again on the next lookup.
+            if (snapshot == CustomItems.getSnapshot() && (customItem != null || !CustomItemDefinitions.isDefined(namespacedKey))) {
+                cache.put(id, entry);
+                String key = namespacedKey.toString();
+                if (!key.equals(id)) {
+                    aliases.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return the amount of lookups that were answered by the cache
+     */
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the amount of lookups that had to parse the id and look up the CustomItem
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    public static void resetStats() {
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Removes the cached entries of the NamespacedKey, including the ones of its aliases.
+     * This is required for changes that don't publish a new snapshot, like a CustomItem that is registered via {@link CustomItemDefinitions},
+     * as the cache also contains the ids that couldn't be resolved.
+     *
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     */
+    static void invalidate(NamespacedKey namespacedKey) {
+        String key = namespacedKey.toString();
+        synchronized (cache) {
+            cache.remove(key);
+            Set<String> ids = aliases.remove(key);
+            if (ids != null) {
+                ids.forEach(cache::remove);
+            }
+        }
+    }
+
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+            aliases.clear();
+        }
+    }
+
+    /**
+     * Removes the id from the aliases of its key. Must be called while holding the lock of the cache.
+     */
+    private static void removeAlias(String id, CacheEntry entry) {
+        String key = entry.namespacedKey.toString();
+        if (key.equals(id)) return;
+        Set<String> ids = aliases.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            aliases.remove(key);
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final NamespacedKey namespacedKey;
+        @Nullable
+        private final WeakReference<CustomItem> customItem;
+
+        private CacheEntry(NamespacedKey namespacedKey, @Nullable CustomItem customItem) {
+            this.namespacedKey = namespacedKey;
+            this.customItem = customItem != null ? new WeakReference<>(customItem) : null;
+        }
+
+        @Nullable
+        private CustomItem getCustomItem() {
+            return customItem != null ? customItem.get() : null;
+        }
+
+        /**
+         * @return false if the CustomItem was garbage collected
+         */
+        private boolean isValid() {
+            return customItem == null || customItem.get() != null;
+        }
+    }
+}
@@ -1,44 +1,98 @@
 package me.wolfyscript.utilities.api.custom_items;
 
 import me.wolfyscript.utilities.api.custom_items.api_references.WolfyUtilitiesRef;
+import me.wolfyscript.utilities.api.custom_items.blocks.BlockPosition;
+import me.wolfyscript.utilities.api.custom_items.blocks.BlockStorage;
+import me.wolfyscript.utilities.api.custom_items.blocks.BlockStoragePersistence;
+import me.wolfyscript.utilities.api.custom_items.blocks.ChunkBlockStorage;
+import me.wolfyscript.utilities.api.custom_items.blocks.WorldBlockStorage;
 import me.wolfyscript.utilities.api.utils.NamespacedKey;
-import me.wolfyscript.utilities.api.utils.Pair;
 import me.wolfyscript.utilities.api.utils.particles.ParticleEffect;
+import me.wolfyscript.utilities.api.utils.particles.ParticleEffectRegistry;
 import me.wolfyscript.utilities.api.utils.particles.ParticleEffects;
 import me.wolfyscript.utilities.main.WUPlugin;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 public class CustomItems {
 
-    private static final TreeMap<NamespacedKey, CustomItem> customItems = new TreeMap<>();
-
-    private static final HashMap<Location, Pair<NamespacedKey, UUID>> storedBlocks = new HashMap<>();
+    /**
+     * The current immutable snapshot of the registered CustomItems.
+     * Writers create a new snapshot and publish it, so readers never need to lock and can be on any thread.
+     */
+    private static volatile Snapshot snapshot = new Snapshot(0, Collections.emptyMap(), Collections.emptyMap());
+    private static final Object writeLock = new Object();
+    private static final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
-    private static final HashMap<UUID, HashMap<EquipmentSlot, UUID>> playerItemParticles = new HashMap<>();
+    private static final BlockStorage blockStorage = new BlockStorage();
+    private static BlockStoragePersistence blockStoragePersistence;
+    private static boolean saveTasksScheduled = false;
 
     public CustomItems(Plugin plugin) {
-        Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::save, 12000, 12000);
+        if (!saveTasksScheduled) {
+            saveTasksScheduled = true;
+            //Flush the journal every second and write the modified chunks every 10 minutes.
+            Bukkit.getScheduler().runTaskTimer(plugin, () -> getBlockStoragePersistence().flushJournal(), 20, 20);
+            Bukkit.getScheduler().runTaskTimer(plugin, () -> getBlockStoragePersistence().saveAsync(), 12000, 12000);
+        }
     }
 
+    /**
+     * The returned map is a sorted copy of the current snapshot.
+     * <p>
+     * Before the registry used snapshots, this returned the live map of the registered CustomItems.
+     * Now it is only a copy, so CustomItems that are put into or removed from it are silently lost!
+     * Use {@link #addCustomItem(NamespacedKey, CustomItem)}, {@link #addCustomItems(Map)} or {@link #removeCustomItem(NamespacedKey)} to modify the registered CustomItems.
+     *
+     * @return a sorted copy of all the registered CustomItems
+     * @deprecated Use {@link #getSnapshot()} to read the CustomItems, which doesn't need to copy the items.
+     */
+    @Deprecated
     public static TreeMap<NamespacedKey, CustomItem> getCustomItems() {
-        return customItems;
+        return new TreeMap<>(snapshot.getItems());
+    }
+
+    /**
+     * The snapshot never changes, so it can be used to read multiple CustomItems consistently.
+     * Each modification of the registered CustomItems publishes a new snapshot with a higher version.
+     *
+     * @return the current snapshot of the registered CustomItems
+     */
+    public static Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @param namespace the namespace of the CustomItems e.g. the plugin name
+     * @return an unmodifiable map of the CustomItems in the namespace
+     */
+    public static Map<NamespacedKey, CustomItem> getCustomItems(String namespace) {
+        return snapshot.getItems(namespace);
+    }
+
+    /**
+     * Registers a listener, that is called each time a CustomItem is added, updated or removed.
+     * The listener is called on the thread that made the change, after the new snapshot was published.
+     *
+     * @param listener the listener to register
+     */
+    public static void registerChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void unregisterChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
     }
 
     @Deprecated
@@ -72,7 +126,7 @@ public class CustomItems {
      * @return true if there is an CustomItem for the NamespacedKey
      */
     public static boolean hasCustomItem(NamespacedKey namespacedKey){
-        return customItems.containsKey(namespacedKey);
+        return snapshot.contains(namespacedKey) || CustomItemDefinitions.isDefined(namespacedKey);
     }
 
     /**
@@ -86,11 +140,16 @@ public class CustomItems {
     @Nullable
     public static CustomItem getCustomItem(@Nullable NamespacedKey namespacedKey) {
         if(namespacedKey == null) return null;
-        return customItems.get(namespacedKey);
+        CustomItem customItem = snapshot.get(namespacedKey);
+        if (customItem == null && CustomItemDefinitions.isDefined(namespacedKey)) {
+            return CustomItemDefinitions.load(namespacedKey);
+        }
+        return customItem;
     }
 
     public static void removeCustomItem(NamespacedKey namespacedKey) {
-        customItems.remove(namespacedKey);
+        CustomItemDefinitions.unregister(namespacedKey);
+        update(namespacedKey, null);
     }
 
     /**
@@ -102,70 +161,164 @@ public class CustomItems {
      * @return true if the CustomItem was added or updated.
      */
     public static boolean addCustomItem(NamespacedKey namespacedKey, CustomItem item) {
-        if(item == null || (item.getApiReference() instanceof WolfyUtilitiesRef && ((WolfyUtilitiesRef) item.getApiReference()).getNamespacedKey().equals(namespacedKey))){
-            return false;
+        return addCustomItems(Collections.singletonMap(namespacedKey, item)) > 0;
+    }
+
+    /**
+     * Adds or updates multiple CustomItems at once.
+     * Other than calling {@link #addCustomItem(NamespacedKey, CustomItem)} for each of them, this only publishes a single new snapshot,
+     * so registering a lot of CustomItems doesn't copy the registry for each of them.
+     * CustomItems that have a WolfyUtilitiesRef to their own NamespacedKey are skipped.
+     *
+     * @param items the NamespacedKeys mapped to the CustomItems to add or update
+     * @return the amount of CustomItems that were added or updated
+     */
+    public static int addCustomItems(Map<NamespacedKey, CustomItem> items) {
+        Map<NamespacedKey, CustomItem> changes = new HashMap<>();
+        for (Map.Entry<NamespacedKey, CustomItem> entry : items.entrySet()) {
+            NamespacedKey namespacedKey = entry.getKey();
+            CustomItem item = entry.getValue();
+            if (item == null || (item.getApiReference() instanceof WolfyUtilitiesRef && ((WolfyUtilitiesRef) item.getApiReference()).getNamespacedKey().equals(namespacedKey))) {
+                continue;
+            }
+            item.setNamespacedKey(namespacedKey);
+            CustomItemDefinitions.unregister(namespacedKey);
+            changes.put(namespacedKey, item);
         }
-        item.setNamespacedKey(namespacedKey);
-        customItems.put(namespacedKey, item);
-        return true;
+        update(changes, null);
+        return changes.size();
     }
 
-    public static HashMap<EquipmentSlot, UUID> getActiveItemEffects(Player player) {
-        if (!hasActiveItemEffects(player)) {
-            playerItemParticles.put(player.getUniqueId(), new HashMap<>());
+    /**
+     * Removes multiple CustomItems at once, which only publishes a single new snapshot.
+     *
+     * @param namespacedKeys the NamespacedKeys of the CustomItems to remove
+     */
+    public static void removeCustomItems(Collection<NamespacedKey> namespacedKeys) {
+        Map<NamespacedKey, CustomItem> changes = new HashMap<>();
+        for (NamespacedKey namespacedKey : namespacedKeys) {
+            CustomItemDefinitions.unregister(namespacedKey);
+            changes.put(namespacedKey, null);
+        }
+        update(changes, null);
+    }
+
+    /**
+     * Publishes a new snapshot, in which the NamespacedKey is mapped to the new CustomItem, and notifies the listeners.
+     *
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     * @param item          the new CustomItem or null to remove it
+     */
+    private static void update(NamespacedKey namespacedKey, @Nullable CustomItem item) {
+        update(Collections.singletonMap(namespacedKey, item), null);
+    }
+
+    /**
+     * Publishes a single new snapshot that contains all the changes and notifies the listeners for each of them.
+     * All the changes share the version of the new snapshot.
+     *
+     * @param changes   the NamespacedKeys mapped to the new CustomItems or to null to remove them
+     * @param condition checked for each change while holding the write lock, changes that don't pass are skipped, or null to apply all of them
+     */
+    static void update(Map<NamespacedKey, CustomItem> changes, @Nullable Predicate<NamespacedKey> condition) {
+        List<NamespacedKey> changedKeys = new ArrayList<>();
+        List<CustomItem> previousItems = new ArrayList<>();
+        long version;
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            HashMap<NamespacedKey, CustomItem> items = new HashMap<>(current.items);
+            HashMap<String, Map<NamespacedKey, CustomItem>> namespaces = new HashMap<>(current.namespaces);
+            HashMap<String, HashMap<NamespacedKey, CustomItem>> changedNamespaces = new HashMap<>();
+            for (Map.Entry<NamespacedKey, CustomItem> entry : changes.entrySet()) {
+                NamespacedKey namespacedKey = entry.getKey();
+                CustomItem item = entry.getValue();
+                if (condition != null && !condition.test(namespacedKey)) continue;
+                CustomItem previous = item != null ? items.put(namespacedKey, item) : items.remove(namespacedKey);
+                if (previous == null && item == null) continue;
+                changedKeys.add(namespacedKey);
+                previousItems.add(previous);
+                HashMap<NamespacedKey, CustomItem> namespaceItems = changedNamespaces.computeIfAbsent(namespacedKey.getNamespace(), namespace -> new HashMap<>(current.getItems(namespace)));
+                if (item != null) {
+                    namespaceItems.put(namespacedKey, item);
+                } else {
+                    namespaceItems.remove(namespacedKey);
+                }
+            }
+            if (changedKeys.isEmpty()) return;
+            changedNamespaces.forEach((namespace, namespaceItems) -> {
+                if (namespaceItems.isEmpty()) {
+                    namespaces.remove(namespace);
+                } else {
+                    namespaces.put(namespace, Collections.unmodifiableMap(namespaceItems));
+                }
+            });
+            version = current.version + 1;
+            snapshot = new Snapshot(version, Collections.unmodifiableMap(items), Collections.unmodifiableMap(namespaces));
+        }
+        for (int i = 0; i < changedKeys.size(); i++) {
+            NamespacedKey namespacedKey = changedKeys.get(i);
+            for (ChangeListener listener : changeListeners) {
+                try {
+                    listener.onChange(version, namespacedKey, previousItems.get(i), changes.get(namespacedKey));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
         }
-        return playerItemParticles.get(player.getUniqueId());
+    }
+
+    /**
+     * The returned map is a copy, changes to it have no effect on the active effects!
+     *
+     * @param player the player
+     * @return a copy of the active effects of the equipment slots of the player
+     * @deprecated Use {@link ParticleEffectRegistry#getPlayerEffects(UUID)} instead.
+     */
+    @Deprecated
+    public static HashMap<EquipmentSlot, UUID> getActiveItemEffects(Player player) {
+        return new HashMap<>(ParticleEffectRegistry.getPlayerEffects(player.getUniqueId()));
     }
 
     public static boolean hasActiveItemEffects(Player player) {
-        return playerItemParticles.containsKey(player.getUniqueId());
+        return ParticleEffectRegistry.hasPlayerEffects(player.getUniqueId());
     }
 
     public static boolean hasActiveItemEffects(Player player, EquipmentSlot equipmentSlot) {
-        return playerItemParticles.getOrDefault(player.getUniqueId(), new HashMap<>()).containsKey(equipmentSlot);
+        return getActiveItemEffects(player, equipmentSlot) != null;
     }
 
     public static UUID getActiveItemEffects(Player player, EquipmentSlot equipmentSlot) {
-        return playerItemParticles.getOrDefault(player.getUniqueId(), new HashMap<>()).get(equipmentSlot);
+        return ParticleEffectRegistry.getPlayerEffect(player.getUniqueId(), equipmentSlot);
     }
 
     public static void setActiveParticleEffect(Player player, EquipmentSlot equipmentSlot, UUID uuid) {
-        if (hasActiveItemEffects(player, equipmentSlot)) {
-            stopActiveParticleEffect(player, equipmentSlot);
-        }
-        getActiveItemEffects(player).put(equipmentSlot, uuid);
+        ParticleEffectRegistry.setPlayerEffect(player.getUniqueId(), equipmentSlot, uuid);
     }
 
     public static void stopActiveParticleEffect(Player player, EquipmentSlot equipmentSlot) {
-        ParticleEffects.stopEffect(getActiveItemEffects(player, equipmentSlot));
-        getActiveItemEffects(player).remove(equipmentSlot);
+        ParticleEffectRegistry.setPlayerEffect(player.getUniqueId(), equipmentSlot, null);
     }
 
     //StoredBlocks Methods
+
+    /**
+     * @return the storage that contains all the placed CustomItem blocks
+     */
+    public static BlockStorage getBlockStorage() {
+        return blockStorage;
+    }
+
     public static boolean isBlockStored(Location location) {
-        if (storedBlocks.containsKey(location)) {
-            return storedBlocks.containsKey(location);
-        } else {
-            for (Location location1 : storedBlocks.keySet()) {
-                if (location1.equals(location)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return blockStorage.contains(location);
     }
 
     @Nullable
     public static CustomItem getStoredBlockItem(Location location) {
-        for (Map.Entry<Location, Pair<NamespacedKey, UUID>> entry : storedBlocks.entrySet()) {
-            if (entry.getKey().equals(location)) {
-                return getCustomItem(entry.getValue().getKey());
-            }
-        }
-        return null;
+        return getCustomItem(blockStorage.getItemKey(location));
     }
 
     public static void setStoredBlockItem(Location location, CustomItem customItem) {
+        if (!loadChunkOf(location)) return;
         ParticleEffects.stopEffect(getStoredBlockEffect(location));
         if(customItem.getApiReference() instanceof WolfyUtilitiesRef || customItem.hasNamespacedKey()){
             ParticleContent particleContent = customItem.getParticleContent();
@@ -174,114 +327,218 @@ public class CustomItems {
                 NamespacedKey particle = particleContent.getParticleEffect(ParticleEffect.Action.BLOCK);
                 uuid = ParticleEffects.spawnEffectOnBlock(particle, location.getBlock());
             }
-            storedBlocks.put(location, new Pair<>( customItem.getApiReference() instanceof WolfyUtilitiesRef ? ((WolfyUtilitiesRef) customItem.getApiReference()).getNamespacedKey() : customItem.getNamespacedKey(), uuid));
+            blockStorage.put(location, customItem.getApiReference() instanceof WolfyUtilitiesRef ? ((WolfyUtilitiesRef) customItem.getApiReference()).getNamespacedKey() : customItem.getNamespacedKey(), uuid);
         }
     }
 
     public static void removeStoredBlockItem(Location location) {
+        if (!loadChunkOf(location)) return;
         ParticleEffects.stopEffect(getStoredBlockEffect(location));
-        storedBlocks.remove(location);
+        blockStorage.remove(location);
     }
 
     @Nullable
     public static UUID getStoredBlockEffect(Location location) {
-        for (Map.Entry<Location, Pair<NamespacedKey, UUID>> entry : storedBlocks.entrySet()) {
-            if (entry.getKey().equals(location)) {
-                return entry.getValue().getValue();
-            }
-        }
-        return null;
+        return blockStorage.getEffect(location);
     }
 
     public static boolean hasStoredBlockEffect(Location location) {
-        if (isBlockStored(location)) {
-            return getStoredBlockEffect(location) != null;
-        }
-        return false;
+        return getStoredBlockEffect(location) != null;
     }
 
+    /**
+     * Starts the missing particle effects of the stored blocks in the loaded chunks.
+     * The effects of other chunks are started once the chunks are loaded (see {@link #loadStoredBlocks(Chunk)}).
+     */
     public static void initiateMissingBlockEffects() {
-        for (Map.Entry<Location, Pair<NamespacedKey, UUID>> entry : storedBlocks.entrySet()) {
-            if (!hasStoredBlockEffect(entry.getKey())) {
-                CustomItem customItem = getCustomItem(entry.getValue().getKey());
-                if (customItem != null) {
-                    if (customItem.getParticleContent() != null && customItem.getParticleContent().containsKey(ParticleEffect.Action.BLOCK)) {
-                        ParticleContent particleContent = customItem.getParticleContent();
-                        NamespacedKey effectID = particleContent.getParticleEffect(ParticleEffect.Action.BLOCK);
-                        if (effectID != null) {
-                            UUID uuid = ParticleEffects.spawnEffectOnBlock(effectID, entry.getKey().getBlock());
-                            storedBlocks.put(entry.getKey(), new Pair<>(customItem.getNamespacedKey(), uuid));
-                        }
+        for (WorldBlockStorage worldStorage : blockStorage.getWorlds()) {
+            World world = Bukkit.getWorld(worldStorage.getWorldUID());
+            if (world == null) continue;
+            for (ChunkBlockStorage chunkStorage : worldStorage.getChunks()) {
+                if (world.isChunkLoaded(chunkStorage.getChunkX(), chunkStorage.getChunkZ())) {
+                    initiateMissingBlockEffects(world, chunkStorage);
+                }
+            }
+        }
+    }
+
+    private static void initiateMissingBlockEffects(World world, ChunkBlockStorage chunkStorage) {
+        chunkStorage.forEach((position, item, effect) -> {
+            if (effect == null) {
+                CustomItem customItem = getCustomItem(blockStorage.getItemKey(item));
+                if (customItem != null && customItem.getParticleContent() != null) {
+                    NamespacedKey effectID = customItem.getParticleContent().getParticleEffect(ParticleEffect.Action.BLOCK);
+                    if (effectID != null) {
+                        chunkStorage.setEffect(position, ParticleEffects.spawnEffectOnBlock(effectID, world.getBlockAt(BlockPosition.unpackX(position), BlockPosition.unpackY(position), BlockPosition.unpackZ(position))));
                     }
                 }
             }
+        });
+    }
+
+    /**
+     * Makes sure the chunk of the location is loaded, so the stored blocks of it are loaded too.
+     *
+     * @return false if the stored blocks of the chunk couldn't be read, so they must not be modified
+     */
+    private static boolean loadChunkOf(Location location) {
+        World world = location.getWorld();
+        if (world == null) return true;
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            world.getChunkAt(chunkX, chunkZ);
+        }
+        if (!getBlockStoragePersistence().isWritable(world.getUID(), chunkX, chunkZ)) {
+            Bukkit.getLogger().warning("Stored blocks of chunk " + chunkX + ", " + chunkZ + " in world " + world.getName() + " couldn't be read! The change at " + location.getBlockX() + ", " + location.getBlockY() + ", " + location.getBlockZ() + " is not stored.");
+            return false;
         }
+        return true;
     }
 
-    private static String locationToString(Location location) {
-        if(location == null || location.getWorld() == null) return null;
-        return location.getWorld().getUID() + ";" + location.getBlockX() + ";" + location.getBlockY() + ";" + location.getBlockZ();
+    public static BlockStoragePersistence getBlockStoragePersistence() {
+        if (blockStoragePersistence == null) {
+            blockStoragePersistence = new BlockStoragePersistence(blockStorage, new File(WUPlugin.getInstance().getDataFolder(), "stored_blocks"));
+        }
+        return blockStoragePersistence;
     }
 
-    private static Location stringToLocation(String loc) {
-        String[] args = loc.split(";");
-        try{
-            UUID uuid = UUID.fromString(args[0]);
-            World world = Bukkit.getWorld(uuid);
-            if(world != null){
-                return new Location(world, Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
-            }
-        }catch (IllegalArgumentException e){
-            Bukkit.getLogger().warning("Couldn't find world "+args[0]);
+    /**
+     * Loads the stored blocks of the chunk and starts their particle effects.
+     *
+     * @param chunk the chunk that was loaded
+     */
+    public static void loadStoredBlocks(Chunk chunk) {
+        ChunkBlockStorage chunkStorage = getBlockStoragePersistence().loadChunk(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ());
+        if (chunkStorage != null) {
+            initiateMissingBlockEffects(chunk.getWorld(), chunkStorage);
         }
-        return null;
     }
 
-    public void save() {
-        try {
-            FileOutputStream fos = new FileOutputStream(new File(WUPlugin.getInstance().getDataFolder() + File.separator + "stored_block_items.dat"));
-            BukkitObjectOutputStream oos = new BukkitObjectOutputStream(fos);
-            HashMap<String, String> saveMap = new HashMap<>();
-            for (Map.Entry<Location, Pair<NamespacedKey, UUID>> entry : storedBlocks.entrySet()) {
-                if (entry.getKey() != null) {
-                    String loc = locationToString(entry.getKey());
-                    if(loc != null){
-                        saveMap.put(loc, entry.getValue().getKey().toString());
-                    }
-                }
+    /**
+     * Suspends the particle effects of the stored blocks in the chunk and releases them from memory.
+     * The effects are started again, when the chunk is loaded again.
+     * Changes are saved on the next save.
+     *
+     * @param chunk the chunk that is unloaded
+     */
+    public static void unloadStoredBlocks(Chunk chunk) {
+        ChunkBlockStorage chunkStorage = getBlockStoragePersistence().unloadChunk(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ());
+        if (chunkStorage != null) {
+            chunkStorage.forEach((position, item, effect) -> ParticleEffects.stopEffect(effect));
+        }
+    }
+
+    /**
+     * Stops the particle effects of all the stored blocks in the world and saves them.
+     *
+     * @param world the world that is unloaded
+     */
+    public static void unloadStoredBlocks(World world) {
+        WorldBlockStorage worldStorage = blockStorage.getWorld(world.getUID());
+        if (worldStorage != null) {
+            for (ChunkBlockStorage chunkStorage : worldStorage.getChunks()) {
+                chunkStorage.forEach((position, item, effect) -> ParticleEffects.stopEffect(effect));
             }
-            oos.writeObject(saveMap);
-            oos.close();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        getBlockStoragePersistence().unloadWorld(world.getUID());
     }
 
+    /**
+     * Saves all the stored blocks and blocks until they are written.
+     * The stored blocks are saved asynchronously in an interval, so this is only required on shutdown.
+     */
+    public void save() {
+        getBlockStoragePersistence().save();
+        CustomItemDefinitions.saveUsage();
+    }
+
+    /**
+     * Migrates the legacy stored_block_items.dat if it exists, recovers the changes that weren't saved because of a crash
+     * and loads the stored blocks of all the loaded chunks.
+     * Stored blocks of other chunks are loaded once the chunks are loaded.
+     */
     public void load() {
-        File file = new File(WUPlugin.getInstance().getDataFolder() + File.separator + "stored_block_items.dat");
-        if (file.exists()) {
-            FileInputStream fis;
-            try {
-                fis = new FileInputStream(file);
-                BukkitObjectInputStream ois = new BukkitObjectInputStream(fis);
-                try {
-                    Object object = ois.readObject();
-                    HashMap<String, String> loadMap = (HashMap<String, String>) object;
-                    for (Map.Entry<String, String> entry : loadMap.entrySet()) {
-                        String[] key = entry.getValue().split(":");
-                        Location location = stringToLocation(entry.getKey());
-                        if(location != null){
-                            storedBlocks.put(location, new Pair<>(new NamespacedKey(key[0], key[1]), null));
-                        }
-                    }
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                }
-                ois.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        File legacyFile = new File(WUPlugin.getInstance().getDataFolder(), "stored_block_items.dat");
+        if (legacyFile.exists()) {
+            getBlockStoragePersistence().migrateLegacyFile(legacyFile);
+        }
+        getBlockStoragePersistence().recover();
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                getBlockStoragePersistence().loadChunk(world.getUID(), chunk.getX(), chunk.getZ());
             }
         }
     }
 
+    /**
+     * An immutable view of the registered CustomItems at a specific version.
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final Map<NamespacedKey, CustomItem> items;
+        private final Map<String, Map<NamespacedKey, CustomItem>> namespaces;
+
+        private Snapshot(long version, Map<NamespacedKey, CustomItem> items, Map<String, Map<NamespacedKey, CustomItem>> namespaces) {
+            this.version = version;
+            this.items = items;
+            this.namespaces = namespaces;
+        }
+
+        /**
+         * @return the version of the snapshot, which is increased by each change
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @Nullable
+        public CustomItem get(NamespacedKey namespacedKey) {
+            return items.get(namespacedKey);
+        }
+
+        public boolean contains(NamespacedKey namespacedKey) {
+            return items.containsKey(namespacedKey);
+        }
+
+        public int size() {
+            return items.size();
+        }
+
+        /**
+         * @return an unmodifiable map of all the CustomItems
+         */
+        public Map<NamespacedKey, CustomItem> getItems() {
+            return items;
+        }
+
+        /**
+         * @param namespace the namespace of the CustomItems
+         * @return an unmodifiable map of the CustomItems in the namespace
+         */
+        public Map<NamespacedKey, CustomItem> getItems(String namespace) {
+            return namespaces.getOrDefault(namespace, Collections.emptyMap());
+        }
+
+        /**
+         * @return an unmodifiable set of the namespaces that contain CustomItems
+         */
+        public Set<String> getNamespaces() {
+            return namespaces.keySet();
+        }
+    }
+
+    public interface ChangeListener {
+
+        /**
+         * Called after a CustomItem was added, updated or removed.
+         *
+         * @param version       the version of the snapshot that contains the change
+         * @param namespacedKey the NamespacedKey of the changed CustomItem
+         * @param oldItem       the previous CustomItem or null if it was added
+         * @param newItem       the new CustomItem or null if it was removed
+         */
+        void onChange(long version, NamespacedKey namespacedKey, @Nullable CustomItem oldItem, @Nullable CustomItem newItem);
+    }
 }
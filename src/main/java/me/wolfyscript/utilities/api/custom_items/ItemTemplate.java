@@ -0,0 +1,89 @@
+package me.wolfyscript.utilities.api.custom_items;
+
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The linked item of a CustomItem with the id of the CustomItem already saved in its persistent data.
+ * Creating an item from it only requires a clone and setting the amount.
+ *
+ * @see LinkedItemCache
+ */
+class ItemTemplate {
+
+    private final ItemStack linkedItem;
+    private final int linkedItemHash;
+    private final int generation;
+    private final ItemTemplate source;
+    private final NamespacedKey namespacedKey;
+    private final ItemStack item;
+
+    /**
+     * @param linkedItem    the linked item of the APIReference
+     * @param generation    the generation of the plugin that provided the linked item or -1 if it isn't from another plugin
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     */
+    ItemTemplate(ItemStack linkedItem, int generation, @Nullable NamespacedKey namespacedKey) {
+        this(linkedItem, generation, null, namespacedKey);
+    }
+
+    /**
+     * @param linkedItem    the item created by the referenced CustomItem
+     * @param source        the template of the referenced CustomItem, that the linked item was created from
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     */
+    ItemTemplate(ItemStack linkedItem, ItemTemplate source, @Nullable NamespacedKey namespacedKey) {
+        this(linkedItem, -1, source, namespacedKey);
+    }
+
+    private ItemTemplate(ItemStack linkedItem, int generation, @Nullable ItemTemplate source, @Nullable NamespacedKey namespacedKey) {
+        this.linkedItem = linkedItem;
+        this.linkedItemHash = generation < 0 && source == null ? linkedItem.hashCode() : 0;
+        this.generation = generation;
+        this.source = source;
+        this.namespacedKey = namespacedKey;
+        ItemStack itemStack = linkedItem.clone();
+        if (namespacedKey != null) {
+            ItemMeta itemMeta = itemStack.getItemMeta();
+            itemMeta.getPersistentDataContainer().set(CustomItemResolver.getIdKey(), PersistentDataType.STRING, namespacedKey.toString());
+            itemStack.setItemMeta(itemMeta);
+        }
+        this.item = itemStack;
+    }
+
+    ItemStack getLinkedItem() {
+        return linkedItem;
+    }
+
+    /**
+     * @return true if the linked item is from another plugin and was built for the generation
+     */
+    boolean isValid(int generation, @Nullable NamespacedKey namespacedKey) {
+        return this.generation == generation && this.namespacedKey == namespacedKey;
+    }
+
+    /**
+     * @return true if the referenced CustomItem still uses the template, that the linked item was created from
+     */
+    boolean isValid(ItemTemplate source, @Nullable NamespacedKey namespacedKey) {
+        return this.source == source && this.namespacedKey == namespacedKey;
+    }
+
+    /**
+     * @return true if the linked item is still the same and wasn't modified
+     */
+    boolean isValid(ItemStack linkedItem, @Nullable NamespacedKey namespacedKey) {
+        return this.linkedItem == linkedItem && this.namespacedKey == namespacedKey && linkedItemHash == linkedItem.hashCode();
+    }
+
+    ItemStack create(int amount) {
+        ItemStack itemStack = item.clone();
+        if (amount > 0) {
+            itemStack.setAmount(amount);
+        }
+        return itemStack;
+    }
+}
@@ -0,0 +1,112 @@
+package me.wolfyscript.utilities.api.custom_items;
+
+import me.wolfyscript.utilities.api.custom_items.api_references.APIReference;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of the templates that {@link CustomItem#create(int)} clones, instead of rebuilding the linked item each time.
+ * <p>
+ * The linked items of {@link APIReference}s that are provided by another plugin (see {@link APIReference#getPluginName()}) are only rebuilt,
+ * when the plugin reloads its items or is enabled or disabled.
+ * For that each plugin has a generation, that is increased by {@link #invalidate(String)}, which outdates all the templates of the plugin at once.
+ * References to another CustomItem are only rebuilt, when the template of that CustomItem changed.
+ * The other references are checked against their current linked item instead.
+ */
+public class LinkedItemCache {
+
+    private static final Map<String, AtomicInteger> generations = new ConcurrentHashMap<>();
+    private static final Listener reloadListener = new Listener() {
+    };
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private LinkedItemCache() {
+    }
+
+    static int getGeneration(String pluginName) {
+        return generations.computeIfAbsent(pluginName, s -> new AtomicInteger()).get();
+    }
+
+    /**
+     * Outdates the cached linked items of the plugin, so they are rebuilt the next time they are used.
+     *
+     * @param pluginName the name of the plugin
+     */
+    public static void invalidate(String pluginName) {
+        generations.computeIfAbsent(pluginName, s -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public static void invalidateAll() {
+        generations.values().forEach(AtomicInteger::incrementAndGet);
+    }
+
+    /**
+     * Invalidates the cached linked items of the plugin each time the event is called.
+     * If the event class doesn't exist, because the plugin is not installed or uses another version, nothing is registered.
+     *
+     * @param plugin         the plugin to register the listener for
+     * @param pluginName     the name of the plugin that reloads its items
+     * @param eventClassName the full class name of the reload event
+     * @return true if the event was registered
+     */
+    public static boolean registerReloadEvent(Plugin plugin, String pluginName, String eventClassName) {
+        Class<? extends Event> eventClass;
+        try {
+            eventClass = Class.forName(eventClassName).asSubclass(Event.class);
+        } catch (ClassNotFoundException | ClassCastException | LinkageError e) {
+            return false;
+        }
+        Bukkit.getPluginManager().registerEvent(eventClass, reloadListener, EventPriority.MONITOR, (listener, event) -> {
+            if (eventClass.isInstance(event)) {
+                invalidate(pluginName);
+            }
+        }, plugin);
+        return true;
+    }
+
+    static void recordHit() {
+        hits.increment();
+    }
+
+    static void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * @return the amount of created items that were cloned from a cached template
+     */
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the amount of created items that required the template to be rebuilt
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the ratio of hits to all created items, between 0 and 1
+     */
+    public static double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total > 0 ? (double) hitCount / total : 0;
+    }
+
+    public static void resetStats() {
+        hits.reset();
+        misses.reset();
+    }
+}
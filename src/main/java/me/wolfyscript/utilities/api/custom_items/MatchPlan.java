@@ -0,0 +1,168 @@
+package me.wolfyscript.utilities.api.custom_items;
+
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The compiled form of {@link CustomItem#isSimilar(ItemStack, boolean)}.
+ * <p>
+ * It is created once for the current {@link ItemTemplate} and {@link MetaSettings} of a CustomItem and contains the already normalized ItemMeta of the item.
+ * The template is only rebuilt when the linked item changed, so the plan doesn't need to check the linked item itself.
+ * The checks are ordered from cheap to expensive: Material, amount, custom model data, name and lore, the {@link Meta} comparisons and finally the ItemFactory.
+ * Only the Metas that ignore a value normalize the ItemMeta of the checked item, which is a copy anyway, so the checked ItemStack is never cloned.
+ * <p>
+ * If one of the Metas can't be compiled for the current option, the plan falls back to the ItemBuilder based check.
+ */
+class MatchPlan {
+
+    private final ItemTemplate template;
+    private final int customAmount;
+    private final NamespacedKey namespacedKey;
+    private final MetaSettings metaSettings;
+    private final MetaSettings.Option[] options;
+
+    private final ItemStack item;
+    private final Material type;
+    private final int amount;
+    private final boolean hasItemMeta;
+
+    private final boolean compiled;
+    private final ItemMeta meta;
+    private final ItemMeta normalizedMeta;
+    private final Meta[] comparators;
+    private final Meta[] normalizers;
+    private final boolean checkCustomModelData;
+    private final boolean checkName;
+    private final boolean checkLore;
+
+    MatchPlan(ItemTemplate template, int customAmount, @Nullable NamespacedKey namespacedKey, ItemStack item, MetaSettings metaSettings) {
+        this.template = template;
+        this.customAmount = customAmount;
+        this.namespacedKey = namespacedKey;
+        this.metaSettings = metaSettings;
+        Collection<Meta> metas = metaSettings.getMetaValues();
+        this.options = new MetaSettings.Option[metas.size()];
+        this.item = item;
+        this.type = item.getType();
+        this.amount = item.getAmount();
+        this.hasItemMeta = item.hasItemMeta();
+        this.meta = item.getItemMeta();
+
+        List<Meta> comparatorList = new ArrayList<>();
+        List<Meta> normalizerList = new ArrayList<>();
+        boolean compilable = meta != null;
+        int i = 0;
+        for (Meta value : metas) {
+            options[i++] = value.getOption();
+            if (!compilable || !value.isCompilable(meta)) {
+                compilable = false;
+            } else if (value.getOption().equals(MetaSettings.Option.IGNORE)) {
+                normalizerList.add(value);
+            } else {
+                comparatorList.add(value);
+            }
+        }
+        this.compiled = compilable;
+        this.comparators = comparatorList.toArray(new Meta[0]);
+        this.normalizers = normalizerList.toArray(new Meta[0]);
+        if (compiled) {
+            this.normalizedMeta = meta.clone();
+            for (Meta normalizer : normalizers) {
+                normalizer.normalize(normalizedMeta);
+            }
+        } else {
+            this.normalizedMeta = null;
+        }
+        this.checkCustomModelData = isExact(metaSettings, "customModelData");
+        this.checkName = isExact(metaSettings, "name");
+        this.checkLore = isExact(metaSettings, "lore");
+    }
+
+    Material getType() {
+        return type;
+    }
+
+    /**
+     * @return true if only items with the same custom model data can match, even if the ItemMeta isn't checked
+     */
+    boolean isCustomModelDataChecked() {
+        return checkCustomModelData && hasItemMeta && meta != null;
+    }
+
+    /**
+     * @return the custom model data of the item or null if it has none
+     */
+    @Nullable
+    Integer getCustomModelData() {
+        return meta != null && meta.hasCustomModelData() ? meta.getCustomModelData() : null;
+    }
+
+    private static boolean isExact(MetaSettings metaSettings, String id) {
+        Meta value = metaSettings.getMetaByID(id);
+        return value != null && value.getOption().equals(MetaSettings.Option.EXACT);
+    }
+
+    /**
+     * The plan is outdated if the template was rebuilt, if the amount or NamespacedKey changed or if the options of the MetaSettings changed.
+     *
+     * @param template      the current template of the CustomItem
+     * @param customAmount  the current amount of the CustomItem
+     * @param namespacedKey the current NamespacedKey of the CustomItem
+     * @param metaSettings  the current MetaSettings of the CustomItem
+     * @return true if the plan can still be used
+     */
+    boolean isValid(ItemTemplate template, int customAmount, @Nullable NamespacedKey namespacedKey, MetaSettings metaSettings) {
+        if (this.template != template || this.customAmount != customAmount || this.namespacedKey != namespacedKey || this.metaSettings != metaSettings) {
+            return false;
+        }
+        int i = 0;
+        for (Meta value : metaSettings.getMetaValues()) {
+            if (i >= options.length || options[i++] != value.getOption()) {
+                return false;
+            }
+        }
+        return i == options.length;
+    }
+
+    boolean matches(ItemStack other, boolean exactMeta) {
+        if (other == null) return false;
+        if (other.getType() != type || other.getAmount() < amount) return false;
+        if (!exactMeta && !hasItemMeta) return true;
+        if (!compiled) {
+            ItemBuilder customItem = new ItemBuilder(item.clone());
+            ItemBuilder customItemOther = new ItemBuilder(other.clone());
+            return metaSettings.checkMeta(customItemOther, customItem) && Bukkit.getItemFactory().equals(customItem.getItemMeta(), customItemOther.getItemMeta());
+        }
+        //The ItemMeta is always a copy, so it can be normalized without affecting the ItemStack.
+        ItemMeta otherMeta = other.getItemMeta();
+        if (otherMeta == null) return false;
+        if (checkCustomModelData && (otherMeta.hasCustomModelData() != meta.hasCustomModelData() || (meta.hasCustomModelData() && otherMeta.getCustomModelData() != meta.getCustomModelData()))) {
+            return false;
+        }
+        if (checkName && (otherMeta.hasDisplayName() != meta.hasDisplayName() || (meta.hasDisplayName() && !otherMeta.getDisplayName().equals(meta.getDisplayName())))) {
+            return false;
+        }
+        if (checkLore && (otherMeta.hasLore() != meta.hasLore() || (meta.hasLore() && !Objects.equals(otherMeta.getLore(), meta.getLore())))) {
+            return false;
+        }
+        for (Meta comparator : comparators) {
+            if (!comparator.compare(otherMeta, meta)) {
+                return false;
+            }
+        }
+        for (Meta normalizer : normalizers) {
+            normalizer.normalize(otherMeta);
+        }
+        return Bukkit.getItemFactory().equals(normalizedMeta, otherMeta);
+    }
+}
@@ -3,6 +3,7 @@ package me.wolfyscript.utilities.api.custom_items;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -46,6 +47,38 @@ public abstract class Meta {
 
     public abstract boolean check(ItemBuilder itemOther, ItemBuilder item);
 
+    /**
+     * Checks if this Meta can be used in the {@link MatchPlan} of a CustomItem with the current option.
+     * In that case {@link #compare(ItemMeta, ItemMeta)} and {@link #normalize(ItemMeta)} must have the same result as {@link #check(ItemBuilder, ItemBuilder)}.
+     *
+     * @param meta the ItemMeta of the CustomItem
+     * @return true if this Meta can be checked directly on the ItemMetas
+     */
+    public boolean isCompilable(ItemMeta meta) {
+        return false;
+    }
+
+    /**
+     * Compares the values of the ItemMetas, that aren't already compared by the ItemFactory.
+     * Only called if the option isn't {@link MetaSettings.Option#IGNORE}.
+     *
+     * @param metaOther the ItemMeta of the checked ItemStack
+     * @param meta      the ItemMeta of the CustomItem
+     * @return true if the values match
+     */
+    public boolean compare(ItemMeta metaOther, ItemMeta meta) {
+        return true;
+    }
+
+    /**
+     * Removes the ignored values from the ItemMeta, so they aren't compared by the ItemFactory.
+     * Only called if the option is {@link MetaSettings.Option#IGNORE}.
+     *
+     * @param itemMeta the ItemMeta to normalize
+     */
+    public void normalize(ItemMeta itemMeta) {
+    }
+
     public void writeToJson(JsonGenerator gen) throws IOException {
         gen.writeString(option.toString());
     }
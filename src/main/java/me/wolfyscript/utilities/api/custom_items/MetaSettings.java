@@ -81,6 +81,13 @@ public class MetaSettings {
         return new ArrayList<>(metas.keySet());
     }
 
+    /**
+     * @return an unmodifiable view of the Metas, that always iterates in the same order
+     */
+    Collection<Meta> getMetaValues() {
+        return Collections.unmodifiableCollection(metas.values());
+    }
+
     public boolean checkMeta(ItemBuilder itemOther, ItemBuilder item) {
         for (Meta meta : metas.values()) {
             if (!meta.check(itemOther, item)) {
@@ -3,6 +3,7 @@ package me.wolfyscript.utilities.api.custom_items.api_references;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -23,10 +24,28 @@ public abstract class APIReference {
      */
     public abstract ItemStack getIdItem();
 
+    /**
+     * The plugin that provides the linked item.
+     * If not null, the linked item is cached and only rebuilt when the plugin reloads its items or is enabled or disabled.
+     *
+     * @return the name of the plugin or null if the linked item isn't provided by another plugin
+     */
+    @Nullable
+    public String getPluginName() {
+        return null;
+    }
+
     public int getAmount() {
         return amount > 0 ? amount : getLinkedItem().getAmount();
     }
 
+    /**
+     * @return the custom amount or 0 if the amount of the linked item is used
+     */
+    public int getCustomAmount() {
+        return amount;
+    }
+
     public void setAmount(int amount){
         this.amount = amount;
     }
@@ -0,0 +1,138 @@
+package me.wolfyscript.utilities.api.custom_items.api_references;
+
+import me.wolfyscript.utilities.api.utils.inventory.ItemNBTUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.EnumSet;
+
+/**
+ * Detects the {@link APIReference} of ItemStacks that were created by a specific plugin.
+ * <p>
+ * Resolvers are registered in {@link APIReferenceResolvers} and are called in the order of their cost.
+ * To keep the resolution cheap, a resolver should declare prefilters (Material, custom model data, persistent data namespace or NBT key),
+ * so {@link #resolve(ItemStack)}, which usually calls the API of the plugin, is only called for ItemStacks that might be from the plugin.
+ */
+public abstract class APIReferenceResolver {
+
+    private final String id;
+    private final int cost;
+    private final String pluginName;
+
+    private EnumSet<Material> materials = null;
+    private boolean customModelData = false;
+    private String persistentDataNamespace = null;
+    private String nbtKey = null;
+
+    /**
+     * @param id         the unique id of the resolver
+     * @param cost       the cost of the resolver, resolvers with a lower cost are called first
+     * @param pluginName the plugin that must be enabled to use this resolver or null if it is always available
+     */
+    protected APIReferenceResolver(String id, int cost, @Nullable String pluginName) {
+        this.id = id;
+        this.cost = cost;
+        this.pluginName = pluginName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Nullable
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    /**
+     * @return true if the plugin of this resolver is enabled
+     */
+    public boolean isActive() {
+        return pluginName == null || Bukkit.getPluginManager().isPluginEnabled(pluginName);
+    }
+
+    /**
+     * Only ItemStacks of these Materials are resolved.
+     *
+     * @param materials the Materials or null to allow all of them
+     */
+    protected void setMaterials(@Nullable Collection<Material> materials) {
+        this.materials = materials != null ? EnumSet.copyOf(materials) : null;
+    }
+
+    /**
+     * @param customModelData true if only ItemStacks with custom model data are resolved
+     */
+    protected void setCustomModelData(boolean customModelData) {
+        this.customModelData = customModelData;
+    }
+
+    /**
+     * Only ItemStacks that have at least one key of the namespace in their persistent data are resolved.
+     *
+     * @param persistentDataNamespace the namespace or null to disable this prefilter
+     */
+    protected void setPersistentDataNamespace(@Nullable String persistentDataNamespace) {
+        this.persistentDataNamespace = persistentDataNamespace;
+    }
+
+    /**
+     * Only ItemStacks that contain the key in the root of their NBT are resolved.
+     * This prefilter is skipped if the NBT can't be accessed directly.
+     *
+     * @param nbtKey the key or null to disable this prefilter
+     */
+    protected void setNBTKey(@Nullable String nbtKey) {
+        this.nbtKey = nbtKey;
+    }
+
+    /**
+     * Checks the prefilters of this resolver.
+     * If a prefilter can't be checked, it passes, so the result might be a false positive, but never a false negative.
+     *
+     * @param itemStack the ItemStack, which is not null
+     * @return true if the ItemStack might be resolved by this resolver
+     */
+    public boolean test(ItemStack itemStack) {
+        if (materials != null && !materials.contains(itemStack.getType())) return false;
+        if (!customModelData && persistentDataNamespace == null && nbtKey == null) return true;
+        if (!itemStack.hasItemMeta()) return false;
+        if (ItemNBTUtils.isAccessible(itemStack)) {
+            if (customModelData && !ItemNBTUtils.hasKey(itemStack, "CustomModelData")) return false;
+            if (nbtKey != null && !ItemNBTUtils.hasKey(itemStack, nbtKey)) return false;
+            return persistentDataNamespace == null || ItemNBTUtils.hasPersistentDataNamespace(itemStack, persistentDataNamespace);
+        }
+        if (!customModelData && persistentDataNamespace == null) return true;
+        ItemMeta itemMeta = itemStack.getItemMeta();
+        if (itemMeta == null) return false;
+        if (customModelData && !itemMeta.hasCustomModelData()) return false;
+        if (persistentDataNamespace != null) {
+            for (NamespacedKey key : itemMeta.getPersistentDataContainer().getKeys()) {
+                if (key.getNamespace().equals(persistentDataNamespace)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the APIReference of the ItemStack.
+     * This is only called if the plugin is enabled and the ItemStack passed the prefilters.
+     *
+     * @param itemStack the ItemStack
+     * @return the APIReference or null if the ItemStack isn't from the plugin
+     */
+    @Nullable
+    public abstract APIReference resolve(ItemStack itemStack);
+}
@@ -0,0 +1,157 @@
+package me.wolfyscript.utilities.api.custom_items.api_references;
+
+import me.wolfyscript.utilities.api.utils.inventory.ItemNBTUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The registry of the {@link APIReferenceResolver}s, that detect the plugin an ItemStack is from.
+ * <p>
+ * Only the resolvers of enabled plugins are used, sorted by their cost and then by their id.
+ * The first resolver that passes the prefilters and returns an APIReference wins.
+ * <p>
+ * To keep the cost flat, no matter how many resolvers are registered, the resolver that matched is cached for each fingerprint.
+ * The fingerprint consists of the Material and the hash of the NBT keys, which are the values the prefilters check.
+ * The cache only stores which resolver matched, so the APIReference itself is always resolved again.
+ * If that resolver doesn't pass or doesn't resolve the ItemStack anymore, e.g. because of a hash collision, all the resolvers are checked as usual.
+ * Items that none of the resolvers matched are not cached, so a collision can never turn a plugin item into a vanilla item.
+ * It is cleared when resolvers are registered or plugins are enabled or disabled.
+ */
+public class APIReferenceResolvers {
+
+    private static final int CACHE_SIZE = 2048;
+
+    private static final Map<String, APIReferenceResolver> resolvers = new HashMap<>();
+    private static volatile APIReferenceResolver[] active = new APIReferenceResolver[0];
+
+    private static final Map<Long, Integer> fingerprints = new LinkedHashMap<Long, Integer>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private APIReferenceResolvers() {
+    }
+
+    /**
+     * Registers the resolver. If a resolver with the same id already exists, it is replaced.
+     *
+     * @param resolver the resolver to register
+     */
+    public static void register(APIReferenceResolver resolver) {
+        synchronized (resolvers) {
+            resolvers.put(resolver.getId(), resolver);
+        }
+        refresh();
+    }
+
+    public static void unregister(String id) {
+        synchronized (resolvers) {
+            resolvers.remove(id);
+        }
+        refresh();
+    }
+
+    @Nullable
+    public static APIReferenceResolver get(String id) {
+        synchronized (resolvers) {
+            return resolvers.get(id);
+        }
+    }
+
+    /**
+     * @return the resolvers of the enabled plugins, sorted by their cost
+     */
+    public static List<APIReferenceResolver> getActive() {
+        return Collections.unmodifiableList(Arrays.asList(active));
+    }
+
+    /**
+     * Updates the active resolvers and clears the cache.
+     * This is called when a plugin is enabled or disabled.
+     */
+    public static void refresh() {
+        List<APIReferenceResolver> list = new ArrayList<>();
+        synchronized (resolvers) {
+            for (APIReferenceResolver resolver : resolvers.values()) {
+                if (resolver.isActive()) {
+                    list.add(resolver);
+                }
+            }
+        }
+        //Resolvers with the same cost are sorted by their id, so the order doesn't depend on the order of the HashMap.
+        list.sort(Comparator.comparingInt(APIReferenceResolver::getCost).thenComparing(APIReferenceResolver::getId));
+        synchronized (fingerprints) {
+            active = list.toArray(new APIReferenceResolver[0]);
+            fingerprints.clear();
+        }
+    }
+
+    public static void clearCache() {
+        synchronized (fingerprints) {
+            fingerprints.clear();
+        }
+    }
+
+    /**
+     * Detects the plugin the ItemStack is from and returns its APIReference.
+     *
+     * @param itemStack the ItemStack
+     * @return the APIReference or null if none of the resolvers matched, in which case it is a vanilla item
+     */
+    @Nullable
+    public static APIReference resolve(@Nullable ItemStack itemStack) {
+        if (itemStack == null) return null;
+        APIReferenceResolver[] resolvers = active;
+        if (resolvers.length == 0) return null;
+        Long fingerprint = null;
+        if (ItemNBTUtils.isAccessible(itemStack)) {
+            fingerprint = ((long) itemStack.getType().ordinal() << 32) | (ItemNBTUtils.getKeyHash(itemStack) & 0xFFFFFFFFL);
+            Integer cached;
+            synchronized (fingerprints) {
+                cached = fingerprints.get(fingerprint);
+            }
+            if (cached != null && cached < resolvers.length && resolvers[cached].test(itemStack)) {
+                APIReference reference = resolve(resolvers[cached], itemStack);
+                if (reference != null) {
+                    return reference;
+                }
+            }
+        }
+        for (int i = 0; i < resolvers.length; i++) {
+            APIReferenceResolver resolver = resolvers[i];
+            if (resolver.test(itemStack)) {
+                APIReference reference = resolve(resolver, itemStack);
+                if (reference != null) {
+                    cache(resolvers, fingerprint, i);
+                    return reference;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static APIReference resolve(APIReferenceResolver resolver, ItemStack itemStack) {
+        try {
+            return resolver.resolve(itemStack);
+        } catch (Exception | LinkageError e) {
+            Bukkit.getLogger().warning("Failed to resolve the APIReference of an item via \"" + resolver.getId() + "\": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void cache(APIReferenceResolver[] resolvers, @Nullable Long fingerprint, int index) {
+        if (fingerprint == null) return;
+        synchronized (fingerprints) {
+            //The active resolvers might have changed in the meantime, so the index would be wrong.
+            if (resolvers == active) {
+                fingerprints.put(fingerprint, index);
+            }
+        }
+    }
+}
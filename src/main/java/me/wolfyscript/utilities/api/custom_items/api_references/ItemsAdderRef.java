@@ -30,6 +30,11 @@ public class ItemsAdderRef extends APIReference{
         return new ItemStack(Material.AIR);
     }
 
+    @Override
+    public String getPluginName() {
+        return "ItemsAdder";
+    }
+
     @Override
     public ItemStack getIdItem() {
         return getLinkedItem();
@@ -76,5 +81,16 @@ public class ItemsAdderRef extends APIReference{
 
     }
 
+    public static class Resolver extends APIReferenceResolver {
+
+        public Resolver() {
+            super("itemsadder", 10, "ItemsAdder");
+            setNBTKey("itemsadder");
+        }
 
+        @Override
+        public APIReference resolve(ItemStack itemStack) {
+            return ItemsAdder.isCustomItem(itemStack) ? new ItemsAdderRef(ItemsAdder.getCustomItemName(itemStack)) : null;
+        }
+    }
 }
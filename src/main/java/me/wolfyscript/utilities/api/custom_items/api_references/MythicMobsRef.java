@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import io.lumine.xikage.mythicmobs.MythicMobs;
+import me.wolfyscript.utilities.api.utils.inventory.ItemNBTUtils;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.IOException;
@@ -24,6 +25,11 @@ public class MythicMobsRef extends APIReference{
         return MythicMobs.inst().getItemManager().getItemStack(itemName);
     }
 
+    @Override
+    public String getPluginName() {
+        return "MythicMobs";
+    }
+
     @Override
     public ItemStack getIdItem() {
         return getLinkedItem();
@@ -59,4 +65,23 @@ public class MythicMobsRef extends APIReference{
             return new MythicMobsRef(node.asText());
         }
     }
+
+    public static class Resolver extends APIReferenceResolver {
+
+        public Resolver() {
+            super("mythicmobs", 20, "MythicMobs");
+            setNBTKey("MYTHIC_TYPE");
+        }
+
+        @Override
+        public APIReference resolve(ItemStack itemStack) {
+            String name = null;
+            if (ItemNBTUtils.isAccessible(itemStack)) {
+                name = ItemNBTUtils.getString(itemStack, "MYTHIC_TYPE");
+            } else if (MythicMobs.inst().getVolatileCodeHandler().getItemHandler() != null) {
+                name = MythicMobs.inst().getVolatileCodeHandler().getItemHandler().getNBTData(itemStack).getString("MYTHIC_TYPE");
+            }
+            return name != null && MythicMobs.inst().getItemManager().getItem(name).isPresent() ? new MythicMobsRef(name) : null;
+        }
+    }
 }
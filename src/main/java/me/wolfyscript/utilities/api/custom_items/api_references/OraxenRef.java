@@ -28,6 +28,11 @@ public class OraxenRef extends APIReference{
         return new ItemStack(Material.AIR);
     }
 
+    @Override
+    public String getPluginName() {
+        return "Oraxen";
+    }
+
     @Override
     public ItemStack getIdItem() {
         return getLinkedItem();
@@ -72,4 +77,18 @@ public class OraxenRef extends APIReference{
             return new OraxenRef(node.asText());
         }
     }
+
+    public static class Resolver extends APIReferenceResolver {
+
+        public Resolver() {
+            super("oraxen", 10, "Oraxen");
+            setPersistentDataNamespace("oraxen");
+        }
+
+        @Override
+        public APIReference resolve(ItemStack itemStack) {
+            String itemId = OraxenItems.getIdByItem(itemStack);
+            return itemId != null && !itemId.isEmpty() ? new OraxenRef(itemId) : null;
+        }
+    }
 }
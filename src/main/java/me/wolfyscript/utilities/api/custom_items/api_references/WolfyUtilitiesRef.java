@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import me.wolfyscript.utilities.api.custom_items.CustomItem;
+import me.wolfyscript.utilities.api.custom_items.CustomItemResolver;
 import me.wolfyscript.utilities.api.custom_items.CustomItems;
 import me.wolfyscript.utilities.api.utils.NamespacedKey;
 import org.bukkit.Material;
@@ -31,11 +32,9 @@ public class WolfyUtilitiesRef extends APIReference {
 
     @Override
     public ItemStack getLinkedItem() {
-        if(CustomItems.getCustomItems().containsKey(namespacedKey)){
-            CustomItem customItem = CustomItems.getCustomItem(namespacedKey);
-            if(customItem != null){
-                return customItem.create();
-            }
+        CustomItem customItem = CustomItems.getCustomItem(namespacedKey);
+        if(customItem != null){
+            return customItem.create();
         }
         System.out.println("Couldn't find CustomItem for "+namespacedKey.toString());
         return null;
@@ -99,5 +98,20 @@ public class WolfyUtilitiesRef extends APIReference {
 
     }
 
+    /**
+     * Resolves the items that contain the id of a CustomItem in their persistent data.
+     */
+    public static class Resolver extends APIReferenceResolver {
 
+        public Resolver() {
+            super("wolfyutilities", 0, null);
+            setPersistentDataNamespace(CustomItemResolver.getIdKey().getNamespace());
+        }
+
+        @Override
+        public APIReference resolve(ItemStack itemStack) {
+            NamespacedKey namespacedKey = CustomItemResolver.getNamespacedKey(itemStack);
+            return namespacedKey != null ? new WolfyUtilitiesRef(namespacedKey) : null;
+        }
+    }
 }
@@ -0,0 +1,246 @@
+package me.wolfyscript.utilities.api.custom_items.blocks;
+
+import me.wolfyscript.utilities.api.utils.LongObjectHashMap;
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An append-only write-ahead journal of the place and remove operations of the {@link BlockStorage}.
+ * <p>
+ * Operations are buffered in memory when they happen and appended to the current journal segment on {@link #flush()},
+ * which is meant to be called off the main thread.
+ * Once the region files contain all the changes of a segment, the segment can be deleted.
+ * If the server crashes, the segments are replayed on the next start, so only the operations since the last flush are lost.
+ * <p>
+ * The operations are absolute (put item at position or remove position), so replaying operations that are already saved is harmless.
+ * <p>
+ * Operations that couldn't be applied, because their chunk couldn't be read, are kept in the retained segment (see {@link #writeRetained(Map)}),
+ * which is replayed before all the other segments and is not deleted with them.
+ */
+public class BlockJournal {
+
+    private static final String PREFIX = "journal.";
+    private static final String SUFFIX = ".log";
+    private static final String RETAINED = PREFIX + "retained" + SUFFIX;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private final File directory;
+    private final Object lock = new Object();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+    private int segment;
+
+    public BlockJournal(File directory) {
+        this.directory = directory;
+        List<File> segments = getSegmentFiles();
+        this.segment = segments.isEmpty() ? 0 : getSegmentIndex(segments.get(segments.size() - 1)) + 1;
+    }
+
+    private File getSegmentFile(int segment) {
+        return new File(directory, PREFIX + segment + SUFFIX);
+    }
+
+    public void logPut(UUID worldUID, long position, NamespacedKey itemKey) {
+        synchronized (lock) {
+            try {
+                bufferOut.writeByte(PUT);
+                bufferOut.writeLong(worldUID.getMostSignificantBits());
+                bufferOut.writeLong(worldUID.getLeastSignificantBits());
+                bufferOut.writeLong(position);
+                bufferOut.writeUTF(itemKey.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public void logRemove(UUID worldUID, long position) {
+        synchronized (lock) {
+            try {
+                bufferOut.writeByte(REMOVE);
+                bufferOut.writeLong(worldUID.getMostSignificantBits());
+                bufferOut.writeLong(worldUID.getLeastSignificantBits());
+                bufferOut.writeLong(position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment.
+     * Operations that are still buffered are written to the new segment, so they are kept even if the old segments are deleted.
+     *
+     * @return the index of the new segment. All segments before it can be deleted once the current state is saved.
+     */
+    public int rotate() {
+        synchronized (lock) {
+            return ++segment;
+        }
+    }
+
+    /**
+     * Appends the buffered operations to the current segment and forces them to the disk.
+     *
+     * @throws IOException if the operations couldn't be written
+     */
+    public void flush() throws IOException {
+        byte[] bytes;
+        int currentSegment;
+        synchronized (lock) {
+            if (buffer.size() == 0) return;
+            bytes = buffer.toByteArray();
+            buffer.reset();
+            currentSegment = segment;
+        }
+        directory.mkdirs();
+        try (FileOutputStream out = new FileOutputStream(getSegmentFile(currentSegment), true)) {
+            out.write(bytes);
+            out.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Deletes all the segments before the specified one.
+     *
+     * @param segment the first segment to keep
+     */
+    public void deleteSegmentsBefore(int segment) {
+        for (File file : getSegmentFiles()) {
+            if (getSegmentIndex(file) < segment && !file.delete()) {
+                Bukkit.getLogger().warning("Couldn't delete journal segment " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the retained segment with the operations.
+     * The segment is deleted if there are no operations.
+     *
+     * @param operations the operations per world and chunk, which map the position to the NamespacedKey of the item or null if it was removed
+     * @throws IOException if the segment couldn't be written
+     */
+    public void writeRetained(Map<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> operations) throws IOException {
+        File file = new File(directory, RETAINED);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Map.Entry<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> entry : operations.entrySet()) {
+                UUID worldUID = entry.getKey();
+                for (Map<Long, NamespacedKey> chunkOperations : entry.getValue().values()) {
+                    for (Map.Entry<Long, NamespacedKey> operation : chunkOperations.entrySet()) {
+                        out.writeByte(operation.getValue() != null ? PUT : REMOVE);
+                        out.writeLong(worldUID.getMostSignificantBits());
+                        out.writeLong(worldUID.getLeastSignificantBits());
+                        out.writeLong(operation.getKey());
+                        if (operation.getValue() != null) {
+                            out.writeUTF(operation.getValue().toString());
+                        }
+                    }
+                }
+            }
+        }
+        if (bytes.size() == 0) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Couldn't delete " + file.getName());
+            }
+            return;
+        }
+        directory.mkdirs();
+        File tempFile = new File(directory, RETAINED + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            bytes.writeTo(out);
+            out.getChannel().force(false);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replays the operations of all the existing segments in the order they happened.
+     * A truncated operation at the end of a segment, caused by a crash while writing, is ignored.
+     *
+     * @param consumer the consumer that applies the operations
+     * @return the amount of replayed operations
+     */
+    public int replay(OperationConsumer consumer) {
+        int count = 0;
+        List<File> files = new ArrayList<>();
+        File retained = new File(directory, RETAINED);
+        if (retained.exists()) {
+            //The retained operations are older than the ones of the segments.
+            files.add(retained);
+        }
+        files.addAll(getSegmentFiles());
+        for (File file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    byte type;
+                    try {
+                        type = in.readByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (type != PUT && type != REMOVE) {
+                        throw new IOException("Invalid operation " + type);
+                    }
+                    UUID worldUID = new UUID(in.readLong(), in.readLong());
+                    long position = in.readLong();
+                    NamespacedKey itemKey = type == PUT ? NamespacedKey.getByString(in.readUTF()) : null;
+                    consumer.accept(worldUID, position, itemKey);
+                    count++;
+                }
+            } catch (EOFException e) {
+                Bukkit.getLogger().warning("Journal segment " + file.getName() + " is truncated! Ignoring the last operation.");
+            } catch (IOException | IllegalArgumentException e) {
+                Bukkit.getLogger().warning("Failed to replay journal segment " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the existing segment files sorted by their index
+     */
+    private List<File> getSegmentFiles() {
+        List<File> segments = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                if (getSegmentIndex(file) >= 0) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort((o1, o2) -> Integer.compare(getSegmentIndex(o1), getSegmentIndex(o2)));
+        return segments;
+    }
+
+    private static int getSegmentIndex(File file) {
+        String name = file.getName();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public interface OperationConsumer {
+
+        /**
+         * @param worldUID the uid of the world
+         * @param position the packed block position
+         * @param itemKey  the NamespacedKey of the placed item or null if the block was removed
+         */
+        void accept(UUID worldUID, long position, @Nullable NamespacedKey itemKey);
+    }
+}
@@ -0,0 +1,55 @@
+package me.wolfyscript.utilities.api.custom_items.blocks;
+
+import org.bukkit.Location;
+
+/**
+ * Packs block and chunk coordinates into primitive longs.
+ * <p>
+ * Block positions use 26 bits for x and z and 12 bits for y, the same layout Minecraft uses internally.
+ * Chunk keys use the lower 32 bits for the chunk x and the upper 32 bits for the chunk z coordinate.
+ */
+public final class BlockPosition {
+
+    private BlockPosition() {
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    public static long pack(Location location) {
+        return pack(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    public static int unpackY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    public static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX & 0xFFFFFFFFL) | ((long) chunkZ & 0xFFFFFFFFL) << 32;
+    }
+
+    /**
+     * @param position the packed block position
+     * @return the key of the chunk the block position is in
+     */
+    public static long chunkKeyOf(long position) {
+        return chunkKey(unpackX(position) >> 4, unpackZ(position) >> 4);
+    }
+
+    public static int chunkX(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) (chunkKey >>> 32);
+    }
+}
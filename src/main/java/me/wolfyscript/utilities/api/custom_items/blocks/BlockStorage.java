@@ -0,0 +1,142 @@
+package me.wolfyscript.utilities.api.custom_items.blocks;
+
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Contains all the placed CustomItem blocks, indexed by world, chunk and packed block position.
+ * <p>
+ * The NamespacedKeys of the items are mapped to compact int ids, so a stored block only needs a long, an int and the effect handle.
+ * These ids are only valid for the current session and must not be persisted!
+ * <p>
+ * If a {@link BlockJournal} is set, all the changes made via the location based methods are logged to it.
+ */
+public class BlockStorage {
+
+    private final HashMap<UUID, WorldBlockStorage> worlds = new HashMap<>();
+
+    private final HashMap<NamespacedKey, Integer> itemIds = new HashMap<>();
+    private final ArrayList<NamespacedKey> itemKeys = new ArrayList<>();
+
+    @Nullable
+    private BlockJournal journal;
+
+    @Nullable
+    public BlockJournal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(@Nullable BlockJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the compact id of the NamespacedKey and assigns a new one if it doesn't have one yet.
+     *
+     * @param namespacedKey the NamespacedKey of the CustomItem
+     * @return the compact id of the NamespacedKey
+     */
+    public int getItemId(NamespacedKey namespacedKey) {
+        Integer id = itemIds.get(namespacedKey);
+        if (id == null) {
+            id = itemKeys.size();
+            itemKeys.add(namespacedKey);
+            itemIds.put(namespacedKey, id);
+        }
+        return id;
+    }
+
+    @Nullable
+    public NamespacedKey getItemKey(int itemId) {
+        return itemId >= 0 && itemId < itemKeys.size() ? itemKeys.get(itemId) : null;
+    }
+
+    @Nullable
+    public WorldBlockStorage getWorld(UUID worldUID) {
+        return worlds.get(worldUID);
+    }
+
+    public WorldBlockStorage getOrCreateWorld(UUID worldUID) {
+        return worlds.computeIfAbsent(worldUID, WorldBlockStorage::new);
+    }
+
+    @Nullable
+    public WorldBlockStorage removeWorld(UUID worldUID) {
+        return worlds.remove(worldUID);
+    }
+
+    /**
+     * @return an unmodifiable view of the worlds that contain stored blocks
+     */
+    public Collection<WorldBlockStorage> getWorlds() {
+        return Collections.unmodifiableCollection(worlds.values());
+    }
+
+    @Nullable
+    private WorldBlockStorage getWorld(Location location) {
+        World world = location.getWorld();
+        return world != null ? worlds.get(world.getUID()) : null;
+    }
+
+    public boolean contains(Location location) {
+        return getItem(location) != ChunkBlockStorage.NO_ITEM;
+    }
+
+    /**
+     * @param location the location of the block
+     * @return the compact item id or {@link ChunkBlockStorage#NO_ITEM} if there is no block stored
+     */
+    public int getItem(Location location) {
+        WorldBlockStorage world = getWorld(location);
+        return world != null ? world.getItem(BlockPosition.pack(location)) : ChunkBlockStorage.NO_ITEM;
+    }
+
+    @Nullable
+    public NamespacedKey getItemKey(Location location) {
+        return getItemKey(getItem(location));
+    }
+
+    @Nullable
+    public UUID getEffect(Location location) {
+        WorldBlockStorage world = getWorld(location);
+        return world != null ? world.getEffect(BlockPosition.pack(location)) : null;
+    }
+
+    public void setEffect(Location location, @Nullable UUID effect) {
+        WorldBlockStorage world = getWorld(location);
+        if (world != null) {
+            world.setEffect(BlockPosition.pack(location), effect);
+        }
+    }
+
+    public void put(Location location, NamespacedKey namespacedKey, @Nullable UUID effect) {
+        World world = location.getWorld();
+        if (world != null) {
+            long position = BlockPosition.pack(location);
+            getOrCreateWorld(world.getUID()).put(position, getItemId(namespacedKey), effect);
+            if (journal != null) {
+                journal.logPut(world.getUID(), position, namespacedKey);
+            }
+        }
+    }
+
+    public boolean remove(Location location) {
+        WorldBlockStorage world = getWorld(location);
+        long position = BlockPosition.pack(location);
+        if (world != null && world.remove(position)) {
+            if (journal != null) {
+                journal.logRemove(world.getWorldUID(), position);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+}
@@ -0,0 +1,658 @@
+package me.wolfyscript.utilities.api.custom_items.blocks;
+
+import me.wolfyscript.utilities.api.utils.LongObjectHashMap;
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import org.bukkit.Bukkit;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and loads the stored blocks of the {@link BlockStorage} per chunk.
+ * <p>
+ * The chunks are saved into {@link RegionFile}s inside a directory per world.
+ * Chunks are only loaded into the BlockStorage when they are loaded by the server and released once they unload,
+ * so the memory usage only depends on the loaded chunks and not on the total amount of placed blocks.
+ * <p>
+ * Unloaded and modified chunks are kept as serialized data until the next save, which writes them to their region files.
+ * <p>
+ * Every change is logged to a {@link BlockJournal}, that is flushed off the main thread via {@link #flushJournal()}.
+ * {@link #saveAsync()} only serializes the modified chunks on the main thread and writes the region files on a separate thread.
+ * Once the region files are written, the journal segments up to that point are deleted.
+ * After a crash the journal is replayed via {@link #recover()}.
+ * <p>
+ * If the stored blocks of a chunk can't be read, the chunk is marked as failed and is read again on the next access.
+ * A failed chunk is read-only, so its data in the region file is never replaced by an empty chunk (see {@link #isWritable(UUID, int, int)}).
+ * Journal operations of chunks, that couldn't be read while recovering, are kept in the retained journal segment and applied once the chunk is loaded.
+ */
+public class BlockStoragePersistence {
+
+    private final BlockStorage blockStorage;
+    private final File directory;
+    private final BlockJournal journal;
+    private HashMap<UUID, LongObjectHashMap<byte[]>> pendingChunks = new HashMap<>();
+
+    /**
+     * The chunks that are currently written by the io thread.
+     * The map is never modified after it was handed to the io thread.
+     */
+    private volatile HashMap<UUID, LongObjectHashMap<byte[]>> writingChunks;
+    private volatile boolean writeFailed;
+    private final HashMap<UUID, Set<Long>> failedChunks = new HashMap<>();
+    //The journal operations per chunk, that couldn't be applied by recover(), mapping the position to the item or null if it was removed.
+    private final HashMap<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> retainedOperations = new HashMap<>();
+    private volatile boolean retainedChanged;
+    private ExecutorService executor;
+
+    public BlockStoragePersistence(BlockStorage blockStorage, File directory) {
+        this.blockStorage = blockStorage;
+        this.directory = directory;
+        this.journal = new BlockJournal(directory);
+        blockStorage.setJournal(journal);
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null || executor.isShutdown()) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "WolfyUtilities BlockStorage IO");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    public BlockJournal getJournal() {
+        return journal;
+    }
+
+    public BlockStorage getBlockStorage() {
+        return blockStorage;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private RegionFile getRegionFile(UUID worldUID, long chunkKey) {
+        return new RegionFile(new File(directory, worldUID.toString()), RegionFile.regionCoord(BlockPosition.chunkX(chunkKey)), RegionFile.regionCoord(BlockPosition.chunkZ(chunkKey)));
+    }
+
+    private LongObjectHashMap<byte[]> getPendingChunks(UUID worldUID) {
+        return pendingChunks.computeIfAbsent(worldUID, uuid -> new LongObjectHashMap<>());
+    }
+
+    /**
+     * Reads the data of the chunk from the pending chunks or its region file.
+     *
+     * @return the serialized chunk or null if there is no data for the chunk
+     */
+    @Nullable
+    private byte[] readChunkData(UUID worldUID, long chunkKey) throws IOException {
+        byte[] data = getQueuedChunkData(pendingChunks, worldUID, chunkKey);
+        if (data == null) {
+            data = getQueuedChunkData(writingChunks, worldUID, chunkKey);
+        }
+        if (data != null) {
+            return data.length > 0 ? data : null;
+        }
+        return getRegionFile(worldUID, chunkKey).read(RegionFile.localIndex(BlockPosition.chunkX(chunkKey), BlockPosition.chunkZ(chunkKey)));
+    }
+
+    @Nullable
+    private static byte[] getQueuedChunkData(@Nullable HashMap<UUID, LongObjectHashMap<byte[]>> queue, UUID worldUID, long chunkKey) {
+        if (queue == null) return null;
+        LongObjectHashMap<byte[]> chunks = queue.get(worldUID);
+        return chunks != null ? chunks.get(chunkKey) : null;
+    }
+
+    /**
+     * Loads the stored blocks of the chunk into the BlockStorage.
+     * If the chunk is already loaded it returns the loaded chunk.
+     *
+     * @param worldUID the uid of the world
+     * @param chunkX   the x coordinate of the chunk
+     * @param chunkZ   the z coordinate of the chunk
+     * @return the loaded chunk or null if there are no stored blocks in that chunk
+     */
+    @Nullable
+    public ChunkBlockStorage loadChunk(UUID worldUID, int chunkX, int chunkZ) {
+        long chunkKey = BlockPosition.chunkKey(chunkX, chunkZ);
+        WorldBlockStorage worldStorage = blockStorage.getWorld(worldUID);
+        ChunkBlockStorage chunk = worldStorage != null ? worldStorage.getChunk(chunkKey) : null;
+        if (chunk != null) return chunk;
+        try {
+            byte[] data = readChunkData(worldUID, chunkKey);
+            chunk = data != null ? deserialize(chunkKey, data) : null;
+            setFailed(worldUID, chunkKey, false);
+            chunk = applyRetainedOperations(worldUID, chunkKey, chunk);
+            if (chunk != null) {
+                blockStorage.getOrCreateWorld(worldUID).putChunk(chunk);
+                return chunk;
+            }
+        } catch (IOException | RuntimeException e) {
+            setFailed(worldUID, chunkKey, true);
+            Bukkit.getLogger().warning("Failed to load stored blocks of chunk " + chunkX + ", " + chunkZ + " in world " + worldUID + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Applies the retained journal operations of the chunk, which are then saved together with the chunk.
+     *
+     * @param chunk the chunk that was read or null if it has no stored blocks
+     * @return the chunk with the applied operations
+     */
+    @Nullable
+    private ChunkBlockStorage applyRetainedOperations(UUID worldUID, long chunkKey, @Nullable ChunkBlockStorage chunk) {
+        LongObjectHashMap<Map<Long, NamespacedKey>> worldOperations = retainedOperations.get(worldUID);
+        Map<Long, NamespacedKey> operations = worldOperations != null ? worldOperations.remove(chunkKey) : null;
+        if (operations == null) return chunk;
+        if (worldOperations.isEmpty()) {
+            retainedOperations.remove(worldUID);
+        }
+        if (chunk == null) {
+            chunk = new ChunkBlockStorage(chunkKey);
+        }
+        for (Map.Entry<Long, NamespacedKey> operation : operations.entrySet()) {
+            if (operation.getValue() != null) {
+                chunk.put(operation.getKey(), blockStorage.getItemId(operation.getValue()), null);
+            } else {
+                chunk.remove(operation.getKey());
+            }
+        }
+        //The retained segment is only rewritten once the chunk is saved.
+        chunk.setDirty(true);
+        retainedChanged = true;
+        Bukkit.getLogger().info("Applied " + operations.size() + " retained stored block changes to chunk " + BlockPosition.chunkX(chunkKey) + ", " + BlockPosition.chunkZ(chunkKey) + " in world " + worldUID);
+        return chunk;
+    }
+
+    private void retain(UUID worldUID, long chunkKey, long position, @Nullable NamespacedKey itemKey) {
+        LongObjectHashMap<Map<Long, NamespacedKey>> worldOperations = retainedOperations.computeIfAbsent(worldUID, uuid -> new LongObjectHashMap<>());
+        Map<Long, NamespacedKey> operations = worldOperations.get(chunkKey);
+        if (operations == null) {
+            operations = new LinkedHashMap<>();
+            worldOperations.put(chunkKey, operations);
+        }
+        operations.put(position, itemKey);
+    }
+
+    /**
+     * Copies the retained operations, so they can be written by the io thread.
+     * The operations of a chunk are never modified once they were added.
+     *
+     * @return the copy or null if they didn't change since they were last written
+     */
+    @Nullable
+    private HashMap<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> copyRetainedOperations() {
+        if (!retainedChanged) return null;
+        retainedChanged = false;
+        HashMap<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> copy = new HashMap<>();
+        retainedOperations.forEach((worldUID, operations) -> {
+            LongObjectHashMap<Map<Long, NamespacedKey>> worldCopy = new LongObjectHashMap<>();
+            operations.forEach(worldCopy::put);
+            copy.put(worldUID, worldCopy);
+        });
+        return copy;
+    }
+
+    /**
+     * Writes the retained operations to the retained journal segment.
+     *
+     * @param operations the copy of the operations or null if they didn't change
+     * @return true if the segment is up to date, so the other segments can be deleted
+     */
+    private boolean writeRetained(@Nullable HashMap<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> operations) {
+        if (operations == null) return true;
+        try {
+            journal.writeRetained(operations);
+            return true;
+        } catch (IOException e) {
+            Bukkit.getLogger().severe("Failed to write the retained stored block changes: " + e.getMessage());
+            retainedChanged = true;
+            return false;
+        }
+    }
+
+    /**
+     * Checks if the stored blocks of the chunk can be modified.
+     * If the chunk couldn't be read before, it is read again. As long as it can't be read, the chunk is read-only,
+     * because saving it would replace the stored blocks in the region file.
+     *
+     * @param worldUID the uid of the world
+     * @param chunkX   the x coordinate of the chunk
+     * @param chunkZ   the z coordinate of the chunk
+     * @return true if the chunk was read successfully or has no stored blocks
+     */
+    public boolean isWritable(UUID worldUID, int chunkX, int chunkZ) {
+        if (!isFailed(worldUID, BlockPosition.chunkKey(chunkX, chunkZ))) return true;
+        loadChunk(worldUID, chunkX, chunkZ);
+        return !isFailed(worldUID, BlockPosition.chunkKey(chunkX, chunkZ));
+    }
+
+    private boolean isFailed(UUID worldUID, long chunkKey) {
+        Set<Long> chunks = failedChunks.get(worldUID);
+        return chunks != null && chunks.contains(chunkKey);
+    }
+
+    private void setFailed(UUID worldUID, long chunkKey, boolean failed) {
+        if (failed) {
+            failedChunks.computeIfAbsent(worldUID, uuid -> new HashSet<>()).add(chunkKey);
+        } else {
+            Set<Long> chunks = failedChunks.get(worldUID);
+            if (chunks != null && chunks.remove(chunkKey) && chunks.isEmpty()) {
+                failedChunks.remove(worldUID);
+            }
+        }
+    }
+
+    /**
+     * Removes the chunk from the BlockStorage.
+     * If the chunk was modified, it is queued to be written on the next save.
+     *
+     * @param worldUID the uid of the world
+     * @param chunkX   the x coordinate of the chunk
+     * @param chunkZ   the z coordinate of the chunk
+     * @return the chunk that was unloaded or null if the chunk had no stored blocks
+     */
+    @Nullable
+    public ChunkBlockStorage unloadChunk(UUID worldUID, int chunkX, int chunkZ) {
+        long chunkKey = BlockPosition.chunkKey(chunkX, chunkZ);
+        //A failed chunk is read again, when it is loaded the next time.
+        setFailed(worldUID, chunkKey, false);
+        WorldBlockStorage worldStorage = blockStorage.getWorld(worldUID);
+        if (worldStorage == null) return null;
+        ChunkBlockStorage chunk = worldStorage.removeChunk(chunkKey);
+        if (chunk != null) {
+            savePending(worldUID, chunk);
+            if (worldStorage.isEmpty()) {
+                blockStorage.removeWorld(worldUID);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Unloads all the chunks of the world.
+     * The modified chunks are written on the next save.
+     *
+     * @param worldUID the uid of the world
+     */
+    public void unloadWorld(UUID worldUID) {
+        failedChunks.remove(worldUID);
+        WorldBlockStorage worldStorage = blockStorage.removeWorld(worldUID);
+        if (worldStorage != null) {
+            for (ChunkBlockStorage chunk : worldStorage.getChunks()) {
+                savePending(worldUID, chunk);
+            }
+        }
+    }
+
+    private void savePending(UUID worldUID, ChunkBlockStorage chunk) {
+        if (chunk.isDirty() && !isFailed(worldUID, chunk.getChunkKey())) {
+            getPendingChunks(worldUID).put(chunk.getChunkKey(), chunk.isEmpty() ? RegionFile.DELETE : serialize(chunk));
+            chunk.setDirty(false);
+        }
+    }
+
+    private void saveAllPending() {
+        for (WorldBlockStorage worldStorage : blockStorage.getWorlds()) {
+            for (ChunkBlockStorage chunk : worldStorage.getChunks()) {
+                savePending(worldStorage.getWorldUID(), chunk);
+            }
+        }
+    }
+
+    /**
+     * If the last asynchronous save failed, the chunks it couldn't write are queued again.
+     * Chunks that were queued in the meantime are newer and therefore kept.
+     */
+    private void requeueFailedChunks() {
+        HashMap<UUID, LongObjectHashMap<byte[]>> failedChunks = writingChunks;
+        if (failedChunks != null && writeFailed) {
+            failedChunks.forEach((worldUID, chunks) -> {
+                LongObjectHashMap<byte[]> pending = getPendingChunks(worldUID);
+                chunks.forEach((chunkKey, data) -> {
+                    if (!pending.containsKey(chunkKey)) {
+                        pending.put(chunkKey, data);
+                    }
+                });
+            });
+            writingChunks = null;
+            writeFailed = false;
+        }
+    }
+
+    /**
+     * Appends the buffered journal operations to the journal on the io thread.
+     */
+    public void flushJournal() {
+        getExecutor().execute(() -> {
+            try {
+                journal.flush();
+            } catch (IOException e) {
+                Bukkit.getLogger().severe("Failed to write the stored blocks journal: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Serializes the modified chunks on the current thread and writes them to the region files on the io thread.
+     * This must be called from the main thread.
+     * Does nothing if the previous save is still in progress.
+     *
+     * @return true if a save was started
+     */
+    public boolean saveAsync() {
+        requeueFailedChunks();
+        if (writingChunks != null) return false;
+        saveAllPending();
+        if (pendingChunks.isEmpty()) return false;
+        HashMap<UUID, LongObjectHashMap<byte[]>> snapshot = pendingChunks;
+        HashMap<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> retained = copyRetainedOperations();
+        pendingChunks = new HashMap<>();
+        writingChunks = snapshot;
+        int segment = journal.rotate();
+        getExecutor().execute(() -> {
+            try {
+                journal.flush();
+            } catch (IOException e) {
+                Bukkit.getLogger().severe("Failed to write the stored blocks journal: " + e.getMessage());
+            }
+            if (writeRegions(snapshot)) {
+                if (writeRetained(retained)) {
+                    journal.deleteSegmentsBefore(segment);
+                }
+                writingChunks = null;
+            } else {
+                if (retained != null) {
+                    retainedChanged = true;
+                }
+                writeFailed = true;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Saves all the modified chunks and writes them, together with the unloaded chunks, to the region files.
+     * Other than {@link #saveAsync()} this blocks until everything is written.
+     */
+    public void save() {
+        awaitExecutor();
+        requeueFailedChunks();
+        saveAllPending();
+        HashMap<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> retained = copyRetainedOperations();
+        int segment = journal.rotate();
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            Bukkit.getLogger().severe("Failed to write the stored blocks journal: " + e.getMessage());
+        }
+        if (flush()) {
+            if (writeRetained(retained)) {
+                journal.deleteSegmentsBefore(segment);
+            }
+        } else if (retained != null) {
+            retainedChanged = true;
+        }
+    }
+
+    /**
+     * Waits for the io thread to finish all the queued tasks and shuts it down.
+     */
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    Bukkit.getLogger().warning("Stored blocks io thread didn't finish in time!");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void awaitExecutor() {
+        if (executor != null && !executor.isShutdown()) {
+            try {
+                executor.submit(() -> {
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Writes the queued chunks to their region files on the current thread.
+     *
+     * @return true if all the chunks were written
+     */
+    public boolean flush() {
+        HashMap<UUID, LongObjectHashMap<byte[]>> chunks = pendingChunks;
+        pendingChunks = new HashMap<>();
+        if (writeRegions(chunks)) {
+            return true;
+        }
+        pendingChunks = chunks;
+        return false;
+    }
+
+    /**
+     * Writes the chunks to their region files.
+     * Each region file is only written once, even if multiple of its chunks changed.
+     *
+     * @param chunks the serialized chunks per world
+     * @return true if all the region files were written
+     */
+    private boolean writeRegions(HashMap<UUID, LongObjectHashMap<byte[]>> chunks) {
+        boolean success = true;
+        for (Map.Entry<UUID, LongObjectHashMap<byte[]>> entry : chunks.entrySet()) {
+            UUID worldUID = entry.getKey();
+            LongObjectHashMap<byte[][]> regions = new LongObjectHashMap<>();
+            entry.getValue().forEach((chunkKey, data) -> {
+                int chunkX = BlockPosition.chunkX(chunkKey);
+                int chunkZ = BlockPosition.chunkZ(chunkKey);
+                long regionKey = BlockPosition.chunkKey(RegionFile.regionCoord(chunkX), RegionFile.regionCoord(chunkZ));
+                byte[][] updates = regions.get(regionKey);
+                if (updates == null) {
+                    updates = new byte[RegionFile.CHUNKS][];
+                    regions.put(regionKey, updates);
+                }
+                updates[RegionFile.localIndex(chunkX, chunkZ)] = data;
+            });
+            for (long regionKey : regions.keys()) {
+                RegionFile regionFile = new RegionFile(new File(directory, worldUID.toString()), BlockPosition.chunkX(regionKey), BlockPosition.chunkZ(regionKey));
+                try {
+                    regionFile.write(regions.get(regionKey));
+                } catch (IOException e) {
+                    Bukkit.getLogger().severe("Failed to save stored blocks to " + regionFile.getFile().getPath() + ": " + e.getMessage());
+                    success = false;
+                }
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Applies the operations of the journal, that weren't saved because of a crash, to the region files.
+     * This must be called before any chunks are loaded.
+     */
+    public void recover() {
+        HashMap<UUID, LongObjectHashMap<ChunkBlockStorage>> recovered = new HashMap<>();
+        int[] retainedCount = {0};
+        int count = journal.replay((worldUID, position, itemKey) -> {
+            long chunkKey = BlockPosition.chunkKeyOf(position);
+            if (!isFailed(worldUID, chunkKey)) {
+                try {
+                    ChunkBlockStorage chunk = getOrReadChunk(recovered, worldUID, chunkKey);
+                    if (itemKey != null) {
+                        chunk.put(position, blockStorage.getItemId(itemKey), null);
+                    } else {
+                        chunk.remove(position);
+                    }
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    Bukkit.getLogger().warning("Couldn't recover stored blocks of chunk " + BlockPosition.chunkX(chunkKey) + ", " + BlockPosition.chunkZ(chunkKey) + " in world " + worldUID + ": " + e.getMessage());
+                    setFailed(worldUID, chunkKey, true);
+                }
+            }
+            //The chunk can't be read, so the operation is kept until it can be applied.
+            retain(worldUID, chunkKey, position, itemKey);
+            retainedCount[0]++;
+        });
+        if (count > 0) {
+            recovered.forEach((worldUID, chunks) -> chunks.forEach((chunkKey, chunk) -> savePending(worldUID, chunk)));
+            Bukkit.getLogger().info("Recovered " + (count - retainedCount[0]) + " stored block changes from the journal.");
+        }
+        if (retainedCount[0] > 0) {
+            Bukkit.getLogger().warning("Kept " + retainedCount[0] + " stored block changes of unreadable chunks in the journal. They are applied once the chunks can be read.");
+        }
+        //The retained segment is always rewritten, as the operations it contained were replayed above.
+        retainedChanged = true;
+        HashMap<UUID, LongObjectHashMap<Map<Long, NamespacedKey>>> retained = copyRetainedOperations();
+        int segment = journal.rotate();
+        if (flush() && writeRetained(retained)) {
+            journal.deleteSegmentsBefore(segment);
+        } else if (retained != null) {
+            retainedChanged = true;
+        }
+    }
+
+    private ChunkBlockStorage getOrReadChunk(HashMap<UUID, LongObjectHashMap<ChunkBlockStorage>> chunks, UUID worldUID, long chunkKey) throws IOException {
+        LongObjectHashMap<ChunkBlockStorage> worldChunks = chunks.computeIfAbsent(worldUID, uuid -> new LongObjectHashMap<>());
+        ChunkBlockStorage chunk = worldChunks.get(chunkKey);
+        if (chunk == null) {
+            byte[] data = readChunkData(worldUID, chunkKey);
+            chunk = data != null ? deserialize(chunkKey, data) : new ChunkBlockStorage(chunkKey);
+            worldChunks.put(chunkKey, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Migrates the legacy stored_block_items.dat, that contained all the stored blocks, to the region files.
+     * Once all the blocks are migrated the legacy file is renamed, so it is only migrated once.
+     *
+     * @param legacyFile the legacy stored_block_items.dat file
+     */
+    @SuppressWarnings("unchecked")
+    public void migrateLegacyFile(File legacyFile) {
+        HashMap<String, String> legacyMap;
+        try (BukkitObjectInputStream ois = new BukkitObjectInputStream(new FileInputStream(legacyFile))) {
+            legacyMap = (HashMap<String, String>) ois.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            e.printStackTrace();
+            return;
+        }
+        HashMap<UUID, LongObjectHashMap<ChunkBlockStorage>> migrated = new HashMap<>();
+        int count = 0;
+        for (Map.Entry<String, String> entry : legacyMap.entrySet()) {
+            String[] args = entry.getKey().split(";");
+            try {
+                UUID worldUID = UUID.fromString(args[0]);
+                NamespacedKey itemKey = NamespacedKey.getByString(entry.getValue());
+                if (itemKey == null) continue;
+                long position = BlockPosition.pack(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+                getOrReadChunk(migrated, worldUID, BlockPosition.chunkKeyOf(position)).put(position, blockStorage.getItemId(itemKey), null);
+                count++;
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | IOException e) {
+                Bukkit.getLogger().warning("Couldn't migrate stored block " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+        migrated.forEach((worldUID, chunks) -> chunks.forEach((chunkKey, chunk) -> savePending(worldUID, chunk)));
+        if (!flush()) {
+            Bukkit.getLogger().warning("Couldn't save the migrated stored blocks! They will be migrated again on the next start.");
+            return;
+        }
+        File migratedFile = new File(legacyFile.getParentFile(), legacyFile.getName() + ".migrated");
+        if (!legacyFile.renameTo(migratedFile)) {
+            Bukkit.getLogger().warning("Couldn't rename " + legacyFile.getName() + "! The stored blocks will be migrated again on the next start.");
+        }
+        Bukkit.getLogger().info("Migrated " + count + " stored blocks to " + directory.getPath());
+    }
+
+    /**
+     * Serializes the chunk into a compact binary format.
+     * The NamespacedKeys of the items are saved in a palette, so each block only needs the position inside the chunk and the palette index.
+     *
+     * @param chunk the chunk to serialize
+     * @return the serialized chunk
+     */
+    public byte[] serialize(ChunkBlockStorage chunk) {
+        HashMap<Integer, Integer> paletteIndices = new HashMap<>();
+        List<NamespacedKey> palette = new ArrayList<>();
+        long[] positions = chunk.getPositions();
+        int[] indices = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            int item = chunk.getItem(positions[i]);
+            Integer index = paletteIndices.get(item);
+            if (index == null) {
+                index = palette.size();
+                palette.add(blockStorage.getItemKey(item));
+                paletteIndices.put(item, index);
+            }
+            indices[i] = index;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + positions.length * 7);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(palette.size());
+            for (NamespacedKey namespacedKey : palette) {
+                out.writeUTF(namespacedKey.toString());
+            }
+            out.writeInt(positions.length);
+            for (int i = 0; i < positions.length; i++) {
+                long position = positions[i];
+                out.writeByte((BlockPosition.unpackX(position) & 15) << 4 | (BlockPosition.unpackZ(position) & 15));
+                out.writeShort(BlockPosition.unpackY(position));
+                out.writeInt(indices[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public ChunkBlockStorage deserialize(long chunkKey, byte[] data) throws IOException {
+        ChunkBlockStorage chunk = new ChunkBlockStorage(chunkKey);
+        int baseX = chunk.getChunkX() << 4;
+        int baseZ = chunk.getChunkZ() << 4;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int paletteSize = in.readInt();
+            if (paletteSize < 0 || paletteSize > data.length) {
+                throw new IOException("Invalid palette size " + paletteSize);
+            }
+            int[] palette = new int[paletteSize];
+            for (int i = 0; i < palette.length; i++) {
+                NamespacedKey namespacedKey = NamespacedKey.getByString(in.readUTF());
+                palette[i] = namespacedKey != null ? blockStorage.getItemId(namespacedKey) : ChunkBlockStorage.NO_ITEM;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int xz = in.readUnsignedByte();
+                int y = in.readShort();
+                int index = in.readInt();
+                if (index < 0 || index >= palette.length) {
+                    throw new IOException("Invalid palette index " + index);
+                }
+                int item = palette[index];
+                if (item != ChunkBlockStorage.NO_ITEM) {
+                    chunk.put(BlockPosition.pack(baseX | xz >> 4, y, baseZ | xz & 15), item, null);
+                }
+            }
+        }
+        chunk.setDirty(false);
+        return chunk;
+    }
+}
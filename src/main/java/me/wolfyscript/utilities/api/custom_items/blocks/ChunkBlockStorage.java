@@ -0,0 +1,232 @@
+package me.wolfyscript.utilities.api.custom_items.blocks;
+
+import me.wolfyscript.utilities.api.utils.LongObjectHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Contains the stored blocks of a single chunk.
+ * <p>
+ * The blocks are saved in an open addressing table of packed block positions (see {@link BlockPosition}),
+ * with the compact item id and the active particle effect in parallel arrays.
+ * So lookups, insertions and removals don't allocate any objects.
+ */
+public class ChunkBlockStorage {
+
+    public static final int NO_ITEM = -1;
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final long chunkKey;
+
+    private long[] positions;
+    private int[] items;
+    private UUID[] effects;
+    private int size;
+    private int mask;
+    private boolean dirty;
+
+    public ChunkBlockStorage(long chunkKey) {
+        this.chunkKey = chunkKey;
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        this.positions = new long[capacity];
+        this.items = new int[capacity];
+        this.effects = new UUID[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(items, NO_ITEM);
+    }
+
+    private int indexOf(long position) {
+        int index = LongObjectHashMap.hash(position) & mask;
+        while (items[index] != NO_ITEM) {
+            if (positions[index] == position) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    public long getChunkKey() {
+        return chunkKey;
+    }
+
+    public int getChunkX() {
+        return BlockPosition.chunkX(chunkKey);
+    }
+
+    public int getChunkZ() {
+        return BlockPosition.chunkZ(chunkKey);
+    }
+
+    /**
+     * A chunk is dirty when blocks were put or removed since it was last saved.
+     *
+     * @return true if the chunk was modified since it was last saved
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long position) {
+        return indexOf(position) != -1;
+    }
+
+    /**
+     * @param position the packed block position
+     * @return the compact id of the stored item or {@link #NO_ITEM} if there is no block stored at that position
+     */
+    public int getItem(long position) {
+        int index = indexOf(position);
+        return index != -1 ? items[index] : NO_ITEM;
+    }
+
+    @Nullable
+    public UUID getEffect(long position) {
+        int index = indexOf(position);
+        return index != -1 ? effects[index] : null;
+    }
+
+    /**
+     * Updates the effect of the block at the position.
+     * Does nothing if there is no block stored at the position.
+     * This doesn't change the structure of this storage, so it can be safely called while iterating via {@link #forEach(EntryConsumer)}.
+     *
+     * @param position the packed block position
+     * @param effect   the new effect handle
+     */
+    public void setEffect(long position, @Nullable UUID effect) {
+        int index = indexOf(position);
+        if (index != -1) {
+            effects[index] = effect;
+        }
+    }
+
+    /**
+     * Puts the block into the storage and replaces the old one.
+     *
+     * @param position the packed block position
+     * @param item     the compact item id
+     * @param effect   the active effect or null
+     * @return true if a block was replaced
+     */
+    public boolean put(long position, int item, @Nullable UUID effect) {
+        if (item < 0) throw new IllegalArgumentException("Invalid item id: " + item);
+        dirty = true;
+        int index = LongObjectHashMap.hash(position) & mask;
+        while (items[index] != NO_ITEM) {
+            if (positions[index] == position) {
+                items[index] = item;
+                effects[index] = effect;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        positions[index] = position;
+        items[index] = item;
+        effects[index] = effect;
+        if (++size > (positions.length >> 1) + (positions.length >> 2)) {
+            rehash(positions.length << 1);
+        }
+        return false;
+    }
+
+    /**
+     * @param position the packed block position
+     * @return true if there was a block that was removed
+     */
+    public boolean remove(long position) {
+        int index = indexOf(position);
+        if (index == -1) return false;
+        dirty = true;
+        int last;
+        while (true) {
+            last = index;
+            index = (index + 1) & mask;
+            while (true) {
+                if (items[index] == NO_ITEM) {
+                    items[last] = NO_ITEM;
+                    effects[last] = null;
+                    size--;
+                    return true;
+                }
+                int slot = LongObjectHashMap.hash(positions[index]) & mask;
+                if (last <= index ? (last >= slot || slot > index) : (last >= slot && slot > index)) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            positions[last] = positions[index];
+            items[last] = items[index];
+            effects[last] = effects[index];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldPositions = positions;
+        int[] oldItems = items;
+        UUID[] oldEffects = effects;
+        allocate(capacity);
+        for (int i = 0; i < oldPositions.length; i++) {
+            if (oldItems[i] != NO_ITEM) {
+                int index = LongObjectHashMap.hash(oldPositions[i]) & mask;
+                while (items[index] != NO_ITEM) {
+                    index = (index + 1) & mask;
+                }
+                positions[index] = oldPositions[i];
+                items[index] = oldItems[i];
+                effects[index] = oldEffects[i];
+            }
+        }
+    }
+
+    /**
+     * Calls the consumer for every block stored in this chunk.
+     * The storage must not be structurally modified while iterating!
+     *
+     * @param consumer the consumer that accepts the stored blocks
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < positions.length; i++) {
+            if (items[i] != NO_ITEM) {
+                consumer.accept(positions[i], items[i], effects[i]);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of all the packed block positions in this chunk
+     */
+    public long[] getPositions() {
+        long[] result = new long[size];
+        int j = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (items[i] != NO_ITEM) {
+                result[j++] = positions[i];
+            }
+        }
+        return result;
+    }
+
+    public interface EntryConsumer {
+
+        void accept(long position, int item, @Nullable UUID effect);
+    }
+}
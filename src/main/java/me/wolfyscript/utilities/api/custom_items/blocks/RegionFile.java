@@ -0,0 +1,168 @@
+package me.wolfyscript.utilities.api.custom_items.blocks;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A compact binary file that contains the serialized stored blocks of 32x32 chunks.
+ * <p>
+ * The file starts with a header of {@link #CHUNKS} entries of offset and length, followed by the chunk data.
+ * Single chunks can be read without reading the rest of the file.
+ * Writes always rewrite the whole file into a temporary file, which is then moved over the old one,
+ * so a crash while writing never corrupts the existing data.
+ */
+public class RegionFile {
+
+    private static final int MAGIC = 0x57554253;
+    private static final int VERSION = 1;
+
+    public static final int CHUNKS = 1024;
+    private static final int HEADER_SIZE = 8 + CHUNKS * 8;
+
+    /**
+     * Passed to {@link #write(byte[][])} to delete the data of a chunk.
+     */
+    public static final byte[] DELETE = new byte[0];
+
+    private final File file;
+
+    public RegionFile(File directory, int regionX, int regionZ) {
+        this.file = new File(directory, "r." + regionX + "." + regionZ + ".wubs");
+    }
+
+    public static int regionCoord(int chunkCoord) {
+        return chunkCoord >> 5;
+    }
+
+    public static int localIndex(int chunkX, int chunkZ) {
+        return (chunkX & 31) | (chunkZ & 31) << 5;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Reads the data of a single chunk.
+     *
+     * @param index the local index of the chunk (see {@link #localIndex(int, int)})
+     * @return the data of the chunk or null if there is none
+     * @throws IOException if the file is invalid or couldn't be read
+     */
+    @Nullable
+    public byte[] read(int index) throws IOException {
+        if (!file.exists()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            checkHeader(raf);
+            raf.seek(8 + index * 8L);
+            int offset = raf.readInt();
+            int length = raf.readInt();
+            if (length <= 0) return null;
+            byte[] data = new byte[length];
+            raf.seek(offset);
+            raf.readFully(data);
+            return data;
+        }
+    }
+
+    /**
+     * Reads the data of all the chunks in this region.
+     *
+     * @return an array of {@link #CHUNKS} entries, that are null if the chunk doesn't contain any data
+     * @throws IOException if the file is invalid or couldn't be read
+     */
+    public byte[][] readAll() throws IOException {
+        byte[][] chunks = new byte[CHUNKS][];
+        if (!file.exists()) return chunks;
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (bytes.length < HEADER_SIZE || header.readInt() != MAGIC || header.readInt() != VERSION) {
+            throw new IOException("Invalid region file " + file.getName());
+        }
+        for (int i = 0; i < CHUNKS; i++) {
+            int offset = header.readInt();
+            int length = header.readInt();
+            if (length > 0) {
+                byte[] data = new byte[length];
+                System.arraycopy(bytes, offset, data, 0, length);
+                chunks[i] = data;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Updates the data of the chunks and rewrites the file.
+     * Null entries keep the existing data, {@link #DELETE} removes the data of the chunk.
+     * If no chunk contains data anymore the file is deleted.
+     *
+     * @param updates an array of {@link #CHUNKS} entries
+     * @throws IOException if the file couldn't be written
+     */
+    public void write(byte[][] updates) throws IOException {
+        byte[][] chunks = readAll();
+        boolean empty = true;
+        for (int i = 0; i < CHUNKS; i++) {
+            if (updates[i] != null) {
+                chunks[i] = updates[i].length > 0 ? updates[i] : null;
+            }
+            if (chunks[i] != null) {
+                empty = false;
+            }
+        }
+        if (empty) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        file.getParentFile().mkdirs();
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempFile); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            int offset = HEADER_SIZE;
+            for (byte[] chunk : chunks) {
+                int length = chunk != null ? chunk.length : 0;
+                out.writeInt(length > 0 ? offset : 0);
+                out.writeInt(length);
+                offset += length;
+            }
+            for (byte[] chunk : chunks) {
+                if (chunk != null) {
+                    out.write(chunk);
+                }
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        replace(tempFile, file);
+    }
+
+    /**
+     * Moves the source file over the target file, atomically if the file system supports it.
+     *
+     * @param source the file to move
+     * @param target the file to replace
+     * @throws IOException if the file couldn't be moved
+     */
+    static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void checkHeader(RandomAccessFile raf) throws IOException {
+        if (raf.length() < HEADER_SIZE || raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+            throw new IOException("Invalid region file " + file.getName());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package me.wolfyscript.utilities.api.custom_items.blocks;
+
+import me.wolfyscript.utilities.api.utils.LongObjectHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Contains the {@link ChunkBlockStorage}s of a single world, indexed by their chunk key.
+ */
+public class WorldBlockStorage {
+
+    private final UUID worldUID;
+    private final LongObjectHashMap<ChunkBlockStorage> chunks = new LongObjectHashMap<>();
+
+    public WorldBlockStorage(UUID worldUID) {
+        this.worldUID = worldUID;
+    }
+
+    public UUID getWorldUID() {
+        return worldUID;
+    }
+
+    @Nullable
+    public ChunkBlockStorage getChunk(long chunkKey) {
+        return chunks.get(chunkKey);
+    }
+
+    @Nullable
+    public ChunkBlockStorage getChunk(int chunkX, int chunkZ) {
+        return chunks.get(BlockPosition.chunkKey(chunkX, chunkZ));
+    }
+
+    public ChunkBlockStorage getOrCreateChunk(long chunkKey) {
+        ChunkBlockStorage chunk = chunks.get(chunkKey);
+        if (chunk == null) {
+            chunk = new ChunkBlockStorage(chunkKey);
+            chunks.put(chunkKey, chunk);
+        }
+        return chunk;
+    }
+
+    public void putChunk(ChunkBlockStorage chunk) {
+        chunks.put(chunk.getChunkKey(), chunk);
+    }
+
+    @Nullable
+    public ChunkBlockStorage removeChunk(long chunkKey) {
+        return chunks.remove(chunkKey);
+    }
+
+    /**
+     * @return a copy of the list of chunks that contain stored blocks
+     */
+    public List<ChunkBlockStorage> getChunks() {
+        return chunks.values();
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    public boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    public int getItem(long position) {
+        ChunkBlockStorage chunk = chunks.get(BlockPosition.chunkKeyOf(position));
+        return chunk != null ? chunk.getItem(position) : ChunkBlockStorage.NO_ITEM;
+    }
+
+    @Nullable
+    public UUID getEffect(long position) {
+        ChunkBlockStorage chunk = chunks.get(BlockPosition.chunkKeyOf(position));
+        return chunk != null ? chunk.getEffect(position) : null;
+    }
+
+    public void setEffect(long position, @Nullable UUID effect) {
+        ChunkBlockStorage chunk = chunks.get(BlockPosition.chunkKeyOf(position));
+        if (chunk != null) {
+            chunk.setEffect(position, effect);
+        }
+    }
+
+    public void put(long position, int item, @Nullable UUID effect) {
+        getOrCreateChunk(BlockPosition.chunkKeyOf(position)).put(position, item, effect);
+    }
+
+    /**
+     * Removes the block at the position.
+     * The chunk is kept even if it is empty, so the removal can be saved once the chunk unloads.
+     *
+     * @param position the packed block position
+     * @return true if there was a block that was removed
+     */
+    public boolean remove(long position) {
+        ChunkBlockStorage chunk = chunks.get(BlockPosition.chunkKeyOf(position));
+        return chunk != null && chunk.remove(position);
+    }
+}
@@ -35,4 +35,10 @@ public class AttributesModifiersMeta extends Meta {
         item.setItemMeta(meta);
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        //The ignore option only removes the modifiers of the checked item, which can't be done by normalizing both metas.
+        return option.equals(MetaSettings.Option.EXACT);
+    }
 }
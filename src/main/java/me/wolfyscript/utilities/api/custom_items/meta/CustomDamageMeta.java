@@ -40,4 +40,28 @@ public class CustomDamageMeta extends Meta {
             return true;
         } else return !meta0 && !meta1;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        //Ignoring the damage also updates the durability tag in the lore, which requires the ItemBuilder.
+        return !option.equals(MetaSettings.Option.IGNORE);
+    }
+
+    @Override
+    public boolean compare(ItemMeta metaOther, ItemMeta meta) {
+        boolean meta0 = CustomDurabilityMeta.hasCustomDurability(meta);
+        boolean meta1 = CustomDurabilityMeta.hasCustomDurability(metaOther);
+        if (meta0 && meta1) {
+            switch (option) {
+                case EXACT:
+                    return CustomDurabilityMeta.getInt(metaOther, CustomDurabilityMeta.getDamageKey()) == CustomDurabilityMeta.getInt(meta, CustomDurabilityMeta.getDamageKey());
+                case LOWER:
+                    return CustomDurabilityMeta.getInt(metaOther, CustomDurabilityMeta.getDamageKey()) < CustomDurabilityMeta.getInt(meta, CustomDurabilityMeta.getDamageKey());
+                case HIGHER:
+                    return CustomDurabilityMeta.getInt(metaOther, CustomDurabilityMeta.getDamageKey()) > CustomDurabilityMeta.getInt(meta, CustomDurabilityMeta.getDamageKey());
+            }
+            return true;
+        }
+        return !meta0 && !meta1;
+    }
 }
@@ -3,11 +3,17 @@ package me.wolfyscript.utilities.api.custom_items.meta;
 import me.wolfyscript.utilities.api.custom_items.Meta;
 import me.wolfyscript.utilities.api.custom_items.MetaSettings;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import me.wolfyscript.utilities.main.WUPlugin;
+import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
 
 public class CustomDurabilityMeta extends Meta {
 
+    private static NamespacedKey valueKey;
+    private static NamespacedKey damageKey;
+
     public CustomDurabilityMeta() {
         super("custom_durability");
         setOption(MetaSettings.Option.EXACT);
@@ -42,4 +48,51 @@ public class CustomDurabilityMeta extends Meta {
             return !meta0 && !meta1;
         }
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        //Ignoring the durability also updates the durability tag in the lore, which requires the ItemBuilder.
+        return !option.equals(MetaSettings.Option.IGNORE);
+    }
+
+    @Override
+    public boolean compare(ItemMeta metaOther, ItemMeta meta) {
+        boolean meta0 = hasCustomDurability(meta);
+        boolean meta1 = hasCustomDurability(metaOther);
+        if (meta0 && meta1) {
+            switch (option) {
+                case EXACT:
+                    return getInt(metaOther, getValueKey()) == getInt(meta, getValueKey());
+                case LOWER:
+                    return getInt(metaOther, getValueKey()) < getInt(meta, getValueKey());
+                case HIGHER:
+                    return getInt(metaOther, getValueKey()) > getInt(meta, getValueKey());
+            }
+            return true;
+        }
+        return !meta0 && !meta1;
+    }
+
+    static NamespacedKey getValueKey() {
+        if (valueKey == null) {
+            valueKey = new NamespacedKey(WUPlugin.getInstance(), "customDurability.value");
+        }
+        return valueKey;
+    }
+
+    static NamespacedKey getDamageKey() {
+        if (damageKey == null) {
+            damageKey = new NamespacedKey(WUPlugin.getInstance(), "customDurability.damage");
+        }
+        return damageKey;
+    }
+
+    static boolean hasCustomDurability(ItemMeta itemMeta) {
+        return itemMeta.getPersistentDataContainer().has(getValueKey(), PersistentDataType.INTEGER);
+    }
+
+    static int getInt(ItemMeta itemMeta, NamespacedKey key) {
+        Integer value = itemMeta.getPersistentDataContainer().get(key, PersistentDataType.INTEGER);
+        return value != null ? value : 0;
+    }
 }
@@ -1,11 +1,10 @@
 package me.wolfyscript.utilities.api.custom_items.meta;
 
 
+import me.wolfyscript.utilities.api.custom_items.CustomItemResolver;
 import me.wolfyscript.utilities.api.custom_items.Meta;
 import me.wolfyscript.utilities.api.custom_items.MetaSettings;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
-import me.wolfyscript.utilities.main.WUPlugin;
-import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
 
@@ -22,15 +21,25 @@ public class CustomItemTagMeta extends Meta {
         ItemMeta meta1 = itemOther.getItemMeta();
         ItemMeta meta2 = item.getItemMeta();
         if (option.equals(MetaSettings.Option.IGNORE)) {
-            if (meta1.getPersistentDataContainer().has(new NamespacedKey(WUPlugin.getInstance(), "custom_item"), PersistentDataType.STRING)) {
-                meta1.getPersistentDataContainer().remove(new NamespacedKey(WUPlugin.getInstance(), "custom_item"));
+            if (meta1.getPersistentDataContainer().has(CustomItemResolver.getIdKey(), PersistentDataType.STRING)) {
+                meta1.getPersistentDataContainer().remove(CustomItemResolver.getIdKey());
             }
-            if (meta2.getPersistentDataContainer().has(new NamespacedKey(WUPlugin.getInstance(), "custom_item"), PersistentDataType.STRING)) {
-                meta2.getPersistentDataContainer().remove(new NamespacedKey(WUPlugin.getInstance(), "custom_item"));
+            if (meta2.getPersistentDataContainer().has(CustomItemResolver.getIdKey(), PersistentDataType.STRING)) {
+                meta2.getPersistentDataContainer().remove(CustomItemResolver.getIdKey());
             }
         }
         itemOther.setItemMeta(meta1);
         item.setItemMeta(meta2);
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        itemMeta.getPersistentDataContainer().remove(CustomItemResolver.getIdKey());
+    }
 }
@@ -32,4 +32,29 @@ public class CustomModelDataMeta extends Meta {
         }
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public boolean compare(ItemMeta metaOther, ItemMeta meta) {
+        switch (option) {
+            case LOWER:
+                return getCustomModelData(metaOther) < getCustomModelData(meta);
+            case HIGHER:
+                return getCustomModelData(metaOther) > getCustomModelData(meta);
+        }
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        itemMeta.setCustomModelData(0);
+    }
+
+    private static int getCustomModelData(ItemMeta itemMeta) {
+        return itemMeta.hasCustomModelData() ? itemMeta.getCustomModelData() : 0;
+    }
 }
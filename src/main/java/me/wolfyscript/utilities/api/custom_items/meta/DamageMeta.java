@@ -35,4 +35,27 @@ public class DamageMeta extends Meta {
         }
         return false;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return meta instanceof Damageable;
+    }
+
+    @Override
+    public boolean compare(ItemMeta metaOther, ItemMeta meta) {
+        switch (option) {
+            case EXACT:
+                return ((Damageable) metaOther).getDamage() == ((Damageable) meta).getDamage();
+            case LOWER:
+                return ((Damageable) metaOther).getDamage() < ((Damageable) meta).getDamage();
+            case HIGHER:
+                return ((Damageable) metaOther).getDamage() > ((Damageable) meta).getDamage();
+        }
+        return false;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        ((Damageable) itemMeta).setDamage(0);
+    }
 }
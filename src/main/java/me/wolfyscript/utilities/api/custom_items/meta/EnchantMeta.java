@@ -4,6 +4,10 @@ package me.wolfyscript.utilities.api.custom_items.meta;
 import me.wolfyscript.utilities.api.custom_items.Meta;
 import me.wolfyscript.utilities.api.custom_items.MetaSettings;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
 
 public class EnchantMeta extends Meta {
 
@@ -21,4 +25,16 @@ public class EnchantMeta extends Meta {
         }
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        for (Enchantment enchantment : new ArrayList<>(itemMeta.getEnchants().keySet())) {
+            itemMeta.removeEnchant(enchantment);
+        }
+    }
 }
@@ -4,6 +4,8 @@ package me.wolfyscript.utilities.api.custom_items.meta;
 import me.wolfyscript.utilities.api.custom_items.Meta;
 import me.wolfyscript.utilities.api.custom_items.MetaSettings;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.meta.ItemMeta;
 
 public class FlagsMeta extends Meta {
 
@@ -21,4 +23,14 @@ public class FlagsMeta extends Meta {
         }
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        itemMeta.removeItemFlags(itemMeta.getItemFlags().toArray(new ItemFlag[0]));
+    }
 }
@@ -4,6 +4,7 @@ package me.wolfyscript.utilities.api.custom_items.meta;
 import me.wolfyscript.utilities.api.custom_items.Meta;
 import me.wolfyscript.utilities.api.custom_items.MetaSettings;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 
@@ -23,4 +24,14 @@ public class LoreMeta extends Meta {
         }
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        itemMeta.setLore(new ArrayList<>());
+    }
 }
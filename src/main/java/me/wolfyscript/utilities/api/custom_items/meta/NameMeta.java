@@ -3,6 +3,7 @@ package me.wolfyscript.utilities.api.custom_items.meta;
 import me.wolfyscript.utilities.api.custom_items.Meta;
 import me.wolfyscript.utilities.api.custom_items.MetaSettings;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import org.bukkit.inventory.meta.ItemMeta;
 
 public class NameMeta extends Meta {
 
@@ -20,4 +21,14 @@ public class NameMeta extends Meta {
         }
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        itemMeta.setDisplayName(null);
+    }
 }
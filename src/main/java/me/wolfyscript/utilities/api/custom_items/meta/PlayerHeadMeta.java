@@ -4,6 +4,8 @@ package me.wolfyscript.utilities.api.custom_items.meta;
 import me.wolfyscript.utilities.api.custom_items.Meta;
 import me.wolfyscript.utilities.api.custom_items.MetaSettings;
 import me.wolfyscript.utilities.api.utils.inventory.item_builder.ItemBuilder;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.SkullMeta;
 
 public class PlayerHeadMeta extends Meta {
 
@@ -26,4 +28,10 @@ public class PlayerHeadMeta extends Meta {
         item.removePlayerHeadValue();
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        //Only skulls contain a player head value, other items are compared as usual.
+        return !(meta instanceof SkullMeta);
+    }
 }
@@ -29,4 +29,16 @@ public class PotionMeta extends Meta {
         }
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        if (itemMeta instanceof org.bukkit.inventory.meta.PotionMeta) {
+            ((org.bukkit.inventory.meta.PotionMeta) itemMeta).clearCustomEffects();
+        }
+    }
 }
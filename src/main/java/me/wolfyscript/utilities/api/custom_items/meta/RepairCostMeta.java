@@ -37,4 +37,31 @@ public class RepairCostMeta extends Meta {
         }
         return true;
     }
+
+    @Override
+    public boolean isCompilable(ItemMeta meta) {
+        return true;
+    }
+
+    @Override
+    public boolean compare(ItemMeta metaOther, ItemMeta meta) {
+        if (metaOther instanceof Repairable && meta instanceof Repairable) {
+            switch (option) {
+                case EXACT:
+                    return ((Repairable) metaOther).getRepairCost() == ((Repairable) meta).getRepairCost();
+                case LOWER:
+                    return ((Repairable) metaOther).getRepairCost() < ((Repairable) meta).getRepairCost();
+                case HIGHER:
+                    return ((Repairable) metaOther).getRepairCost() > ((Repairable) meta).getRepairCost();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void normalize(ItemMeta itemMeta) {
+        if (itemMeta instanceof Repairable) {
+            ((Repairable) itemMeta).setRepairCost(0);
+        }
+    }
 }
@@ -30,6 +30,7 @@ public class GuiCluster {
     public void registerButton(Button button, WolfyUtilities api){
         button.init(id, api);
         buttons.putIfAbsent(button.getId(), button);
+        guiWindows.values().forEach(GuiWindow::invalidateStaticFrames);
     }
 
     public Button getButton(String id){
@@ -2,13 +2,11 @@ package me.wolfyscript.utilities.api.inventory;
 
 import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.inventory.button.Button;
+import me.wolfyscript.utilities.api.inventory.cache.ButtonLayout;
 import me.wolfyscript.utilities.api.inventory.cache.CustomCache;
 import me.wolfyscript.utilities.api.inventory.events.GuiCloseEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.bukkit.inventory.Inventory;
@@ -17,7 +15,12 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
-public class GuiHandler<T extends CustomCache> implements Listener {
+/**
+ * Contains the GUI state of a player.
+ * <p>
+ * The GuiHandler isn't a Listener itself. The events of the player are routed to it by the {@link InventoryAPI} that owns it.
+ */
+public class GuiHandler<T extends CustomCache> {
 
     private final WolfyUtilities api;
     private final InventoryAPI<T> invAPI;
@@ -36,7 +39,6 @@ public class GuiHandler<T extends CustomCache> implements Listener {
         this.invAPI = api.getInventoryAPI(customCacheClass);
         this.uuid = player.getUniqueId();
         this.customCache = customCache;
-        Bukkit.getPluginManager().registerEvents(this, api.getPlugin());
     }
 
     public void setChangingInv(boolean changingInv) {
@@ -230,20 +232,33 @@ public class GuiHandler<T extends CustomCache> implements Listener {
     }
 
     public void setButton(GuiWindow guiWindow, int slot, String id) {
-        TreeMap<Integer, String> buttons = customCache.getButtons(guiWindow);
-        buttons.put(slot, id);
-        customCache.setButtons(guiWindow, buttons);
+        customCache.getButtonLayout(guiWindow).setButton(slot, id, guiWindow.resolveButton(id));
+    }
+
+    /*
+    Sets the Button object to the slot, without looking it up by its id.
+     */
+    public void setButton(GuiWindow guiWindow, int slot, Button button) {
+        customCache.getButtonLayout(guiWindow).setButton(slot, button.getId(), button);
     }
 
     public Button getButton(GuiWindow guiWindow, int slot) {
-        String id = customCache.getButtons(guiWindow).get(slot);
-        if (id != null && !id.isEmpty() && id.contains(":")) {
-            return api.getInventoryAPI().getButton(id.split(":")[0], id.split(":")[1]);
+        ButtonLayout layout = customCache.getButtonLayout(guiWindow);
+        Button button = layout.getButton(slot);
+        if (button == null) {
+            //The layout was set via the ids, so the Button is resolved once.
+            String id = layout.getId(slot);
+            if (id != null) {
+                button = guiWindow.resolveButton(id);
+                layout.setButton(slot, id, button);
+            }
         }
-        return guiWindow.getButton(id);
+        return button;
     }
 
-    @EventHandler(priority = EventPriority.HIGH)
+    /*
+    Called by the InventoryAPI when the player closes an inventory.
+     */
     public void onClose(InventoryCloseEvent event) {
         if (event.getPlayer().getUniqueId().equals(uuid)) {
             if (!clusterHistory.isEmpty() && isWindowOpen() && !changingInv) {
@@ -262,7 +277,9 @@ public class GuiHandler<T extends CustomCache> implements Listener {
         setChatInputAction(null);
     }
 
-    @EventHandler
+    /*
+    Called by the InventoryAPI when the player executes a command.
+     */
     public void onCommand(PlayerCommandPreprocessEvent event) {
         Player player = event.getPlayer();
         if (player.getUniqueId().equals(uuid)) {
@@ -4,6 +4,7 @@ import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.inventory.button.Button;
 import me.wolfyscript.utilities.api.inventory.cache.CustomCache;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
@@ -12,10 +13,20 @@ import org.bukkit.inventory.ItemStack;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
-import java.util.Arrays;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders a GuiWindow for a GuiHandler.
+ * <p>
+ * The buttons and items are rendered into a buffer inventory, that is reused by the updates of the GuiHandler and GuiWindow.
+ * When the changes are applied, only the slots whose item differs from the item in the inventory of the GuiWindow are set, so the other slots aren't sent to the player again.
+ */
 public class GuiUpdate {
 
+    private static final LongAdder totalUpdates = new LongAdder();
+    private static final LongAdder totalSentSlots = new LongAdder();
+
     private final GuiHandler<?> guiHandler;
     private final InventoryAPI<?> inventoryAPI;
     private final WolfyUtilities wolfyUtilities;
@@ -23,6 +34,8 @@ public class GuiUpdate {
     private final Inventory inventory;
     private final Inventory queueInventory;
     private final GuiWindow guiWindow;
+    private final AtomicBoolean applied = new AtomicBoolean(false);
+    private volatile int sentSlots = -1;
 
     public GuiUpdate(GuiHandler<?> guiHandler, GuiWindow guiWindow) {
         this.guiHandler = guiHandler;
@@ -30,7 +43,7 @@ public class GuiUpdate {
         this.wolfyUtilities = guiHandler.getApi();
         this.player = guiHandler.getPlayer();
         this.guiWindow = guiWindow;
-        this.queueInventory = Bukkit.createInventory(null, 54, "");
+        this.queueInventory = guiWindow.takeRenderBuffer(guiHandler);
         if (!guiWindow.hasCachedInventory(guiHandler)) {
             String guiName = guiWindow.getInventoryName();
             guiName = guiName.replace("%plugin.version%", wolfyUtilities.getPlugin().getDescription().getVersion()).replace("%plugin.author%", wolfyUtilities.getPlugin().getDescription().getAuthors().toString()).replace("%plugin.name%", wolfyUtilities.getPlugin().getDescription().getName());
@@ -117,7 +130,7 @@ public class GuiUpdate {
      */
     public void setButton(int slot, @Nonnull Button button) {
         if (button != null) {
-            guiHandler.setButton(guiWindow, slot, button.getId());
+            guiHandler.setButton(guiWindow, slot, button);
             renderButton(button, guiHandler, player, queueInventory, slot, guiHandler.isHelpEnabled());
         }
     }
@@ -155,8 +168,67 @@ public class GuiUpdate {
         return Bukkit.createInventory(owner, type, guiWindow.getInventoryName());
     }
 
+    /*
+    Sets the slots of the inventory that changed in the next tick. Only the first call has an effect.
+     */
     public void applyChanges() {
-        Bukkit.getScheduler().runTask(getInventoryAPI().getPlugin(), () -> inventory.setContents(Arrays.copyOfRange(queueInventory.getContents(), 0, inventory.getSize())));
+        if (applied.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTask(getInventoryAPI().getPlugin(), this::apply);
+        }
+    }
+
+    /*
+    Sets the slots of the inventory that changed right away. Must be called on the main thread.
+     */
+    void applyChangesNow() {
+        if (applied.compareAndSet(false, true)) {
+            apply();
+        }
+    }
+
+    private void apply() {
+        ItemStack[] frame = queueInventory.getContents();
+        ItemStack[] current = inventory.getContents();
+        int sent = 0;
+        for (int slot = 0; slot < current.length; slot++) {
+            if (!isSame(frame[slot], current[slot])) {
+                inventory.setItem(slot, frame[slot]);
+                sent++;
+            }
+        }
+        sentSlots = sent;
+        totalUpdates.increment();
+        totalSentSlots.add(sent);
+        queueInventory.clear();
+        guiWindow.releaseRenderBuffer(guiHandler, queueInventory);
+    }
+
+    /**
+     * @return the amount of slots that were set by this update or -1 if the changes weren't applied yet
+     */
+    public int getSentSlots() {
+        return sentSlots;
+    }
+
+    /**
+     * @return the amount of updates that were applied since the start of the server
+     */
+    public static long getTotalUpdates() {
+        return totalUpdates.sum();
+    }
+
+    /**
+     * @return the amount of slots that were set by all the applied updates since the start of the server
+     */
+    public static long getTotalSentSlots() {
+        return totalSentSlots.sum();
+    }
+
+    private static boolean isSame(ItemStack itemStack, ItemStack other) {
+        boolean empty = itemStack == null || itemStack.getType().equals(Material.AIR);
+        boolean otherEmpty = other == null || other.getType().equals(Material.AIR);
+        if (empty || otherEmpty) return empty == otherEmpty;
+        return itemStack.equals(other);
     }
 
 }
@@ -2,16 +2,19 @@ package me.wolfyscript.utilities.api.inventory;
 
 import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.inventory.button.Button;
+import me.wolfyscript.utilities.api.language.Language;
+import me.wolfyscript.utilities.api.language.LanguageAPI;
 import me.wolfyscript.utilities.api.utils.chat.ClickData;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class GuiWindow implements Listener {
 
@@ -21,6 +24,13 @@ public abstract class GuiWindow implements Listener {
     private final InventoryAPI<?> inventoryAPI;
     private final HashMap<GuiHandler<?>, Inventory> cachedInventories;
     private final HashMap<String, Button> buttons = new HashMap<>();
+    private final Map<GuiHandler<?>, Inventory> renderBuffers = new ConcurrentHashMap<>();
+
+    //Static frame, only accessed on the main thread.
+    private final TreeMap<Integer, String> staticButtons = new TreeMap<>();
+    private final ItemStack[][] staticFrames = new ItemStack[2][];
+    private Language staticFramesLanguage;
+    private Language staticFramesFallback;
 
     //Inventory
     private final InventoryType inventoryType;
@@ -88,26 +98,60 @@ public abstract class GuiWindow implements Listener {
         update(guiHandler, false);
     }
 
+    /**
+     * Requests an update of the window for the GuiHandler. The update is rendered in the next tick by the {@link InventoryAPI}.
+     * Requests of the same GuiHandler that are made before the update is rendered are merged into one.
+     *
+     * @param guiHandler    the GuiHandler to update the window for
+     * @param openInventory true to open the inventory after the update
+     */
     protected void update(GuiHandler<?> guiHandler, boolean openInventory) {
-        Bukkit.getScheduler().runTask(guiHandler.getApi().getPlugin(), () -> {
-            if (!guiHandler.isChatEventActive()) {
-                GuiUpdateEvent event = new GuiUpdateEvent(guiHandler, this);
-                Bukkit.getPluginManager().callEvent(event);
-                GuiUpdate guiUpdate = event.getGuiUpdate();
-                onUpdateSync(guiUpdate);
-                Bukkit.getScheduler().runTaskAsynchronously(inventoryAPI.getPlugin(), () -> {
-                    onUpdateAsync(event.getGuiUpdate());
-                    event.getGuiUpdate().applyChanges();
+        guiHandler.getInvAPI().requestUpdate(guiHandler, this, openInventory);
+    }
+
+    /**
+     * Renders the window for the GuiHandler. Called by the {@link InventoryAPI} on the main thread.
+     * The changes are applied in the same main thread task, that opens the inventory.
+     *
+     * @param done called on the main thread when the update is finished or failed
+     */
+    void render(GuiHandler<?> guiHandler, boolean openInventory, Runnable done) {
+        if (guiHandler.isChatEventActive()) {
+            done.run();
+            return;
+        }
+        GuiUpdate guiUpdate;
+        try {
+            GuiUpdateEvent event = new GuiUpdateEvent(guiHandler, this);
+            applyStaticFrame(guiHandler, event.getGuiUpdate());
+            Bukkit.getPluginManager().callEvent(event);
+            guiUpdate = event.getGuiUpdate();
+            onUpdateSync(guiUpdate);
+        } catch (RuntimeException e) {
+            done.run();
+            throw e;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(inventoryAPI.getPlugin(), () -> {
+            try {
+                onUpdateAsync(guiUpdate);
+            } catch (RuntimeException e) {
+                Bukkit.getScheduler().runTask(inventoryAPI.getPlugin(), done);
+                throw e;
+            }
+            Bukkit.getScheduler().runTask(inventoryAPI.getPlugin(), () -> {
+                try {
+                    guiUpdate.applyChangesNow();
                     setCachedInventorie(guiHandler, guiUpdate.getInventory());
-                    if (openInventory) {
-                        Bukkit.getScheduler().runTask(getAPI().getPlugin(), () -> {
-                            guiHandler.setChangingInv(true);
-                            guiHandler.getPlayer().openInventory(guiUpdate.getInventory());
-                            guiHandler.setChangingInv(false);
-                        });
+                    Player player = guiHandler.getPlayer();
+                    if (openInventory && player != null) {
+                        guiHandler.setChangingInv(true);
+                        player.openInventory(guiUpdate.getInventory());
+                        guiHandler.setChangingInv(false);
                     }
-                });
-            }
+                } finally {
+                    done.run();
+                }
+            });
         });
     }
 
@@ -130,6 +174,80 @@ public abstract class GuiWindow implements Listener {
     public void registerButton(Button button) {
         button.init(this);
         buttons.put(button.getId(), button);
+        invalidateStaticFrames();
+    }
+
+    /*
+    Sets a Button to the slot of the static frame.
+    The static frame is rendered once for all players and copied into each update before the other buttons are rendered.
+    So only Buttons that look the same for every player should be static. The id can either be a local Button or a global one in the format "<cluster>:<button>".
+     */
+    public void setStaticButton(int slot, String id) {
+        staticButtons.put(slot, id);
+        invalidateStaticFrames();
+    }
+
+    public void removeStaticButton(int slot) {
+        staticButtons.remove(slot);
+        invalidateStaticFrames();
+    }
+
+    /*
+    Discards the rendered static frames, so they are rendered again on the next update.
+    The frames are discarded automatically when the Language changes or Buttons are registered.
+     */
+    public void invalidateStaticFrames() {
+        staticFrames[0] = null;
+        staticFrames[1] = null;
+    }
+
+    /**
+     * Copies the static frame into the update and sets the static buttons of the GuiHandler.
+     * The frame is rendered with the GuiHandler, if there is none for the current languages and help mode.
+     */
+    void applyStaticFrame(GuiHandler<?> guiHandler, GuiUpdate guiUpdate) {
+        if (staticButtons.isEmpty()) return;
+        LanguageAPI languageAPI = getAPI().getLanguageAPI();
+        if (staticFramesLanguage != languageAPI.getActiveLanguage() || staticFramesFallback != languageAPI.getFallbackLanguage()) {
+            invalidateStaticFrames();
+            staticFramesLanguage = languageAPI.getActiveLanguage();
+            staticFramesFallback = languageAPI.getFallbackLanguage();
+        }
+        boolean help = guiHandler.isHelpEnabled();
+        ItemStack[] frame = staticFrames[help ? 1 : 0];
+        if (frame == null) {
+            frame = renderStaticFrame(guiHandler, help);
+            staticFrames[help ? 1 : 0] = frame;
+        }
+        for (Map.Entry<Integer, String> entry : staticButtons.entrySet()) {
+            if (entry.getKey() < frame.length) {
+                guiHandler.setButton(this, entry.getKey(), entry.getValue());
+                guiUpdate.setItem(entry.getKey(), frame[entry.getKey()]);
+            }
+        }
+    }
+
+    private ItemStack[] renderStaticFrame(GuiHandler<?> guiHandler, boolean help) {
+        Inventory inventory = Bukkit.createInventory(null, 54, "");
+        for (Map.Entry<Integer, String> entry : staticButtons.entrySet()) {
+            String id = entry.getValue();
+            Button button = resolveButton(id);
+            if (button != null) {
+                try {
+                    button.render(guiHandler, guiHandler.getPlayer(), inventory, entry.getKey(), help);
+                } catch (IOException e) {
+                    getAPI().getPlugin().getLogger().warning("Error while rendering Button \"" + button.getId() + "\"!");
+                    e.printStackTrace();
+                }
+            }
+        }
+        ItemStack[] frame = inventory.getContents();
+        for (int i = 0; i < frame.length; i++) {
+            if (frame[i] != null) {
+                frame[i] = frame[i].clone();
+            }
+        }
+        return frame;
     }
 
     /*
@@ -139,6 +257,17 @@ public abstract class GuiWindow implements Listener {
         return buttons.get(id);
     }
 
+    /*
+    Gets the Button by it's id, which is either the id of a Button of this window or "<cluster>:<button>" for a Button of a cluster.
+     */
+    Button resolveButton(String id) {
+        int separator = id != null ? id.indexOf(':') : -1;
+        if (separator >= 0) {
+            return inventoryAPI.getButton(id.substring(0, separator), id.substring(separator + 1));
+        }
+        return getButton(id);
+    }
+
     HashMap<String, Button> getButtons() {
         return buttons;
     }
@@ -235,6 +364,24 @@ public abstract class GuiWindow implements Listener {
         cachedInventories.put(guiHandler, inventory);
     }
 
+    /**
+     * Takes the render buffer of the GuiHandler, so it is only used by one update at a time.
+     *
+     * @param guiHandler the GuiHandler of the update
+     * @return the empty buffer inventory, which is created if there is none or it is used by another update
+     */
+    Inventory takeRenderBuffer(GuiHandler<?> guiHandler) {
+        Inventory buffer = renderBuffers.remove(guiHandler);
+        return buffer != null ? buffer : Bukkit.createInventory(null, 54, "");
+    }
+
+    /**
+     * Puts the cleared buffer back, so the next update of the GuiHandler can reuse it.
+     */
+    void releaseRenderBuffer(GuiHandler<?> guiHandler, Inventory buffer) {
+        renderBuffers.putIfAbsent(guiHandler, buffer);
+    }
+
     public String getClusterID() {
         return clusterID;
     }
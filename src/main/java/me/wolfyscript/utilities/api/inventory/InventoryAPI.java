@@ -3,6 +3,7 @@ package me.wolfyscript.utilities.api.inventory;
 import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.inventory.button.Button;
 import me.wolfyscript.utilities.api.inventory.button.buttons.ItemInputButton;
+import me.wolfyscript.utilities.api.inventory.cache.ButtonLayout;
 import me.wolfyscript.utilities.api.inventory.cache.CustomCache;
 import me.wolfyscript.utilities.api.utils.inventory.InventoryUtils;
 import me.wolfyscript.utilities.main.WUPlugin;
@@ -13,6 +14,7 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nonnull;
@@ -20,18 +22,33 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Manages the GuiClusters and the GuiHandlers of the players.
+ * <p>
+ * The InventoryAPI is the only Listener of the GUIs. It routes the click, drag, close, chat and command events to the GuiHandler of the player,
+ * which is looked up by the uuid of the player, so the cost of an event doesn't depend on the amount of players.
+ */
 public class InventoryAPI<T extends CustomCache> implements Listener {
 
     private final WUPlugin wuPlugin;
     private final Plugin plugin;
     private final WolfyUtilities wolfyUtilities;
-    private final HashMap<UUID, GuiHandler<T>> guiHandlers = new HashMap<>();
+    //Concurrent, because the chat event is called async.
+    private final Map<UUID, GuiHandler<T>> guiHandlers = new ConcurrentHashMap<>();
     private final HashMap<String, GuiCluster> guiClusters = new HashMap<>();
 
     private final Class<T> customCacheClass;
 
+    //Update scheduling
+    private final Map<GuiHandler<?>, UpdateRequest> dirtyHandlers = new ConcurrentHashMap<>();
+    private final Set<GuiHandler<?>> renderingHandlers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
     public InventoryAPI(Plugin plugin, WolfyUtilities wolfyUtilities, Class<T> customCacheClass) {
         this.wuPlugin = WUPlugin.getInstance();
         this.wolfyUtilities = wolfyUtilities;
@@ -159,14 +176,62 @@ public class InventoryAPI<T extends CustomCache> implements Listener {
             removeGui(player);
         }
         guiHandlers.clear();
+        dirtyHandlers.clear();
         guiClusters.forEach((s, guiCluster) -> {
             guiCluster.getButtons().clear();
             guiCluster.getGuiWindows().forEach((s1, guiWindow) -> {
                 guiWindow.getButtons().clear();
+                guiWindow.invalidateStaticFrames();
             });
         });
     }
 
+    /**
+     * Marks the GuiHandler as dirty, so the window is rendered in the next tick.
+     * Each GuiHandler is rendered at most once per tick and only one of its updates is rendered at a time.
+     * Requests that are made in the meantime are merged. The window of the latest request is rendered and the inventory is opened if any of them requested it.
+     *
+     * @param guiHandler    the GuiHandler to update
+     * @param guiWindow     the window to render
+     * @param openInventory true to open the inventory after the update
+     */
+    void requestUpdate(GuiHandler<?> guiHandler, GuiWindow guiWindow, boolean openInventory) {
+        dirtyHandlers.merge(guiHandler, new UpdateRequest(guiWindow, openInventory), UpdateRequest::merge);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTask(plugin, this::flushUpdates);
+        }
+    }
+
+    private void flushUpdates() {
+        flushScheduled.set(false);
+        for (GuiHandler<?> guiHandler : dirtyHandlers.keySet()) {
+            //The handler stays dirty until its current update is finished.
+            if (renderingHandlers.contains(guiHandler)) continue;
+            UpdateRequest request = dirtyHandlers.remove(guiHandler);
+            if (request != null) {
+                renderingHandlers.add(guiHandler);
+                try {
+                    request.guiWindow.render(guiHandler, request.openInventory, () -> finishUpdate(guiHandler));
+                } catch (RuntimeException e) {
+                    //A broken window must not stop the updates of the other handlers.
+                    plugin.getLogger().warning("Error while updating the GuiWindow " + request.guiWindow.getID() + "!");
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void finishUpdate(GuiHandler<?> guiHandler) {
+        renderingHandlers.remove(guiHandler);
+        if (dirtyHandlers.containsKey(guiHandler)) {
+            scheduleFlush();
+        }
+    }
+
     @Deprecated
     public T craftCustomCache() {
         return getNewCacheInstance();
@@ -199,9 +264,8 @@ public class InventoryAPI<T extends CustomCache> implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onInvClick(InventoryClickEvent event) {
         if (event.getClickedInventory() != null) {
-            if (hasGuiHandler((Player) event.getWhoClicked())) {
-                GuiHandler<T> guiHandler = getGuiHandler((Player) event.getWhoClicked());
-
+            GuiHandler<T> guiHandler = guiHandlers.get(event.getWhoClicked().getUniqueId());
+            if (guiHandler != null) {
                 if (guiHandler.verifyInventory(event.getView().getTopInventory())) {
                     GuiWindow guiWindow = guiHandler.getCurrentInv();
                     //Debug Messages
@@ -213,11 +277,11 @@ public class InventoryAPI<T extends CustomCache> implements Listener {
                     event.setCancelled(true);
                     if (guiWindow == null) return;
                     if (event.getAction().equals(InventoryAction.COLLECT_TO_CURSOR)) {
-                        for (Map.Entry<Integer, String> buttonEntry : guiHandler.getCustomCache().getButtons(guiWindow).entrySet()) {
-                            Button button = guiWindow.getButton(buttonEntry.getValue());
+                        for (int slot = 0; slot < ButtonLayout.SIZE; slot++) {
+                            Button button = guiHandler.getButton(guiWindow, slot);
                             if (button instanceof ItemInputButton) {
                                 try {
-                                    event.setCancelled(button.execute(guiHandler, (Player) event.getWhoClicked(), guiWindow.getInventory(guiHandler), buttonEntry.getKey(), event));
+                                    event.setCancelled(button.execute(guiHandler, (Player) event.getWhoClicked(), guiWindow.getInventory(guiHandler), slot, event));
                                 } catch (IOException e) {
                                     e.printStackTrace();
                                 }
@@ -266,8 +330,8 @@ public class InventoryAPI<T extends CustomCache> implements Listener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onItemDrag(InventoryDragEvent event) {
-        if (hasGuiHandler((Player) event.getWhoClicked())) {
-            GuiHandler<?> guiHandler = getGuiHandler((Player) event.getWhoClicked());
+        GuiHandler<T> guiHandler = guiHandlers.get(event.getWhoClicked().getUniqueId());
+        if (guiHandler != null) {
             if (guiHandler.verifyInventory(event.getView().getTopInventory())) {
                 if (event.getRawSlots().stream().anyMatch(rawSlot -> !guiHandler.verifyInventory(event.getView().getInventory(rawSlot)))) {
                     event.setCancelled(true);
@@ -302,14 +366,30 @@ public class InventoryAPI<T extends CustomCache> implements Listener {
         }
     }
 
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onClose(InventoryCloseEvent event) {
+        GuiHandler<T> guiHandler = guiHandlers.get(event.getPlayer().getUniqueId());
+        if (guiHandler != null) {
+            guiHandler.onClose(event);
+        }
+    }
+
+    @EventHandler
+    public void onCommand(PlayerCommandPreprocessEvent event) {
+        GuiHandler<T> guiHandler = guiHandlers.get(event.getPlayer().getUniqueId());
+        if (guiHandler != null) {
+            guiHandler.onCommand(event);
+        }
+    }
+
     /*
     Checks if the player sending the message has active chat events. If he has, it's executed!
     It cancels the event and parses the message into the /wui command.
      */
     @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
     public void onPreChat(AsyncPlayerChatEvent event) {
-        if (hasGuiHandler(event.getPlayer())) {
-            GuiHandler<?> guiHandler = getGuiHandler(event.getPlayer());
+        GuiHandler<T> guiHandler = guiHandlers.get(event.getPlayer().getUniqueId());
+        if (guiHandler != null) {
             if (guiHandler.isChatEventActive()) {
                 final String message = event.getMessage();
                 //Wraps normal written message into command to be executed
@@ -319,4 +399,18 @@ public class InventoryAPI<T extends CustomCache> implements Listener {
         }
     }
 
+    private static class UpdateRequest {
+
+        private final GuiWindow guiWindow;
+        private final boolean openInventory;
+
+        private UpdateRequest(GuiWindow guiWindow, boolean openInventory) {
+            this.guiWindow = guiWindow;
+            this.openInventory = openInventory;
+        }
+
+        private UpdateRequest merge(UpdateRequest next) {
+            return new UpdateRequest(next.guiWindow, openInventory || next.openInventory);
+        }
+    }
 }
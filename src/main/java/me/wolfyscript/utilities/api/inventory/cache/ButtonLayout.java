@@ -0,0 +1,79 @@
+package me.wolfyscript.utilities.api.inventory.cache;
+
+import me.wolfyscript.utilities.api.inventory.button.Button;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Buttons of a GuiWindow for one GuiHandler, indexed by their slot.
+ * <p>
+ * The Buttons are resolved once when they are set, so getting the Button of a slot is only an array index.
+ * The id of each Button is kept as well, so the layout can still be converted to the map of slots to ids.
+ */
+public class ButtonLayout {
+
+    public static final int SIZE = 54;
+
+    private final Button[] buttons = new Button[SIZE];
+    private final String[] ids = new String[SIZE];
+
+    /**
+     * @param slot   the slot of the Button
+     * @param id     the id of the Button, either local or in the format "&lt;cluster&gt;:&lt;button&gt;"
+     * @param button the resolved Button or null if it should be resolved from the id when it is needed
+     */
+    public void setButton(int slot, String id, @Nullable Button button) {
+        if (slot < 0 || slot >= SIZE) return;
+        ids[slot] = id;
+        buttons[slot] = button;
+    }
+
+    /**
+     * @return the resolved Button of the slot or null if there is none or it isn't resolved yet
+     */
+    @Nullable
+    public Button getButton(int slot) {
+        return slot >= 0 && slot < SIZE ? buttons[slot] : null;
+    }
+
+    @Nullable
+    public String getId(int slot) {
+        return slot >= 0 && slot < SIZE ? ids[slot] : null;
+    }
+
+    public void removeButton(int slot) {
+        setButton(slot, null, null);
+    }
+
+    public void clear() {
+        for (int i = 0; i < SIZE; i++) {
+            ids[i] = null;
+            buttons[i] = null;
+        }
+    }
+
+    /**
+     * @return a new map of the slots to the ids of the Buttons
+     */
+    public TreeMap<Integer, String> toMap() {
+        TreeMap<Integer, String> map = new TreeMap<>();
+        for (int i = 0; i < SIZE; i++) {
+            if (ids[i] != null) {
+                map.put(i, ids[i]);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Replaces the layout with the ids of the map. The Buttons are resolved when they are needed.
+     *
+     * @param map the map of the slots to the ids of the Buttons
+     */
+    public void setAll(Map<Integer, String> map) {
+        clear();
+        map.forEach((slot, id) -> setButton(slot, id, null));
+    }
+}
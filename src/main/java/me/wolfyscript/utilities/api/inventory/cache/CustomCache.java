@@ -2,11 +2,14 @@ package me.wolfyscript.utilities.api.inventory.cache;
 
 import me.wolfyscript.utilities.api.inventory.GuiWindow;
 
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CustomCache extends TreeMap<String, Object> {
 
     private final TreeMap<String, Object> windows;
+    private final Map<GuiWindow, ButtonLayout> buttonLayouts = new ConcurrentHashMap<>();
 
     public CustomCache() {
         windows = new TreeMap<>();
@@ -15,7 +18,6 @@ public class CustomCache extends TreeMap<String, Object> {
     public TreeMap<String, Object> getWindowCache(GuiWindow guiWindow) {
         if (!hasWindowCache(guiWindow)) {
             setWindowCache(guiWindow, new TreeMap<>());
-            setButtons(guiWindow, new TreeMap<>());
         }
         return (TreeMap<String, Object>) windows.get(guiWindow.getID());
     }
@@ -28,11 +30,21 @@ public class CustomCache extends TreeMap<String, Object> {
         windows.put(guiWindow.getID(), cache);
     }
 
+    public ButtonLayout getButtonLayout(GuiWindow guiWindow) {
+        return buttonLayouts.computeIfAbsent(guiWindow, window -> new ButtonLayout());
+    }
+
+    /*
+    Returns a copy of the slots and ids of the ButtonLayout.
+    Changes to the returned map must be set via setButtons(GuiWindow, TreeMap)!
+     */
+    @Deprecated
     public TreeMap<Integer, String> getButtons(GuiWindow guiWindow){
-        return ((TreeMap<Integer, String>) getWindowCache(guiWindow).getOrDefault("buttons", new TreeMap<Integer, String>()));
+        return getButtonLayout(guiWindow).toMap();
     }
 
+    @Deprecated
     public void setButtons(GuiWindow guiWindow, TreeMap<Integer, String> buttons){
-        getWindowCache(guiWindow).put("buttons", buttons);
+        getButtonLayout(guiWindow).setAll(buttons);
     }
 }
@@ -64,7 +64,8 @@ public class NamespacedKey implements Comparable<NamespacedKey> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(namespace, key);
+        //Same value as Objects.hash(namespace, key), without allocating the varargs array.
+        return 31 * (31 + namespace.hashCode()) + key.hashCode();
     }
 
     public String toString() {
@@ -0,0 +1,177 @@
+package me.wolfyscript.utilities.api.utils.inventory;
+
+import me.wolfyscript.utilities.api.utils.Reflection;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * Read-only access to the NBT of CraftBukkit ItemStacks without cloning the ItemMeta.
+ * <p>
+ * All the methods only work if {@link #isAccessible(ItemStack)} returns true for the ItemStack,
+ * otherwise the caller has to fall back to the Bukkit API.
+ */
+public class ItemNBTUtils {
+
+    public static final String PUBLIC_BUKKIT_VALUES = "PublicBukkitValues";
+
+    private static Class<?> craftItemStackClazz;
+    private static Field handleField;
+    private static Method getTagMethod;
+    private static Method hasKeyMethod;
+    private static Method getKeysMethod;
+    private static Method getCompoundMethod;
+    private static Method getStringMethod;
+    private static boolean available = false;
+
+    static {
+        try {
+            craftItemStackClazz = Reflection.getOBC("inventory.CraftItemStack");
+            Class<?> nmsItemStackClazz = Reflection.getNMS("ItemStack");
+            Class<?> nbtTagCompoundClazz = Reflection.getNMS("NBTTagCompound");
+            if (craftItemStackClazz != null && nmsItemStackClazz != null && nbtTagCompoundClazz != null) {
+                handleField = craftItemStackClazz.getDeclaredField("handle");
+                handleField.setAccessible(true);
+                getTagMethod = nmsItemStackClazz.getMethod("getTag");
+                hasKeyMethod = nbtTagCompoundClazz.getMethod("hasKey", String.class);
+                getKeysMethod = nbtTagCompoundClazz.getMethod("getKeys");
+                getCompoundMethod = nbtTagCompoundClazz.getMethod("getCompound", String.class);
+                getStringMethod = nbtTagCompoundClazz.getMethod("getString", String.class);
+                available = true;
+            }
+        } catch (Exception e) {
+            Bukkit.getLogger().info("Couldn't access the NBT of items directly. Falling back to the ItemMeta.");
+        }
+    }
+
+    private ItemNBTUtils() {
+    }
+
+    /**
+     * @param itemStack the ItemStack
+     * @return true if the NBT of the ItemStack can be read directly
+     */
+    public static boolean isAccessible(@Nullable ItemStack itemStack) {
+        return available && craftItemStackClazz.isInstance(itemStack);
+    }
+
+    /**
+     * @param itemStack the ItemStack, which must be accessible
+     * @return the NMS NBTTagCompound of the ItemStack or null if it has none
+     */
+    @Nullable
+    public static Object getTag(ItemStack itemStack) {
+        try {
+            Object handle = handleField.get(itemStack);
+            return handle != null ? getTagMethod.invoke(handle) : null;
+        } catch (Exception e) {
+            available = false;
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @param itemStack the ItemStack, which must be accessible
+     * @param key       the key of the root tag
+     * @return true if the root of the NBT contains the key
+     */
+    public static boolean hasKey(ItemStack itemStack, String key) {
+        Object tag = getTag(itemStack);
+        try {
+            return tag != null && (boolean) hasKeyMethod.invoke(tag, key);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @param itemStack the ItemStack, which must be accessible
+     * @param key       the key in the root tag
+     * @return the String value or null if it doesn't exist
+     */
+    @Nullable
+    public static String getString(ItemStack itemStack, String key) {
+        Object tag = getTag(itemStack);
+        if (tag == null) return null;
+        try {
+            String value = (String) getStringMethod.invoke(tag, key);
+            return value.isEmpty() ? null : value;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @param itemStack the ItemStack, which must be accessible
+     * @param compound  the key of the compound in the root tag
+     * @param key       the key inside of the compound
+     * @return the String value or null if it doesn't exist
+     */
+    @Nullable
+    public static String getString(ItemStack itemStack, String compound, String key) {
+        Object tag = getTag(itemStack);
+        if (tag == null) return null;
+        try {
+            String value = (String) getStringMethod.invoke(getCompoundMethod.invoke(tag, compound), key);
+            return value.isEmpty() ? null : value;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the persistent data of the ItemStack contains any key of the namespace.
+     *
+     * @param itemStack the ItemStack, which must be accessible
+     * @param namespace the namespace e.g. the plugin name in lower case
+     * @return true if there is at least one key of the namespace
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean hasPersistentDataNamespace(ItemStack itemStack, String namespace) {
+        Object tag = getTag(itemStack);
+        if (tag == null) return false;
+        try {
+            String prefix = namespace + ":";
+            for (String key : (Set<String>) getKeysMethod.invoke(getCompoundMethod.invoke(tag, PUBLIC_BUKKIT_VALUES))) {
+                if (key.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * The hash of the keys of the root tag and of the persistent data, without their values.
+     * Other than the hash of the whole NBT, it only depends on the amount of keys and not on the size of the values.
+     *
+     * @param itemStack the ItemStack, which must be accessible
+     * @return the hash of the keys or 0 if it has no NBT
+     */
+    @SuppressWarnings("unchecked")
+    public static int getKeyHash(ItemStack itemStack) {
+        Object tag = getTag(itemStack);
+        if (tag == null) return 0;
+        try {
+            Set<String> keys = (Set<String>) getKeysMethod.invoke(tag);
+            int hash = keys.hashCode();
+            if (keys.contains(PUBLIC_BUKKIT_VALUES)) {
+                hash = 31 * hash + ((Set<String>) getKeysMethod.invoke(getCompoundMethod.invoke(tag, PUBLIC_BUKKIT_VALUES))).hashCode();
+            }
+            return hash;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+}
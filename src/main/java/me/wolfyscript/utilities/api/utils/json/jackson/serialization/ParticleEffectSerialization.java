@@ -40,6 +40,9 @@ public class ParticleEffectSerialization {
             gen.writeNumberField("count", particleEffect.getCount());
             gen.writeNumberField("duration", particleEffect.getDuration());
             gen.writeNumberField("cooldown", particleEffect.getCooldown());
+            if (particleEffect.isBake()) {
+                gen.writeBooleanField("bake", true);
+            }
             gen.writeStringField("icon", particleEffect.getIcon().getKey().toString());
             gen.writeStringField("name", particleEffect.getName());
             gen.writeArrayFieldStart("description");
@@ -101,6 +104,9 @@ public class ParticleEffectSerialization {
                 if (node.has("duration")) {
                     resultParticleEffect.setDuration(node.get("duration").asInt());
                 }
+                if (node.has("bake")) {
+                    resultParticleEffect.setBake(node.get("bake").asBoolean());
+                }
                 return resultParticleEffect;
             }
             return null;
@@ -11,6 +11,7 @@ import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.utils.NamespacedKey;
 import me.wolfyscript.utilities.api.utils.json.jackson.JacksonUtil;
 import me.wolfyscript.utilities.api.utils.particles.Particle;
+import me.wolfyscript.utilities.api.utils.particles.ParticleShape;
 import me.wolfyscript.utilities.api.utils.particles.Particles;
 import org.bukkit.Material;
 import org.bukkit.util.Vector;
@@ -93,6 +94,20 @@ public class ParticleSerialization {
                 }
                 gen.writeEndArray();
             }
+            if (checkValue(particle.getShape(), hasSup ? supParticle.getShape() : null)) {
+                ParticleShape shape = particle.getShape();
+                gen.writeObjectFieldStart("shape");
+                gen.writeStringField("type", shape.getType().toString().toLowerCase(Locale.ROOT));
+                gen.writeNumberField("radius", shape.getRadius());
+                gen.writeNumberField("points", shape.getPoints());
+                if (shape.getType() == ParticleShape.Type.HELIX) {
+                    gen.writeNumberField("height", shape.getHeight());
+                    gen.writeNumberField("turns", shape.getTurns());
+                }
+                gen.writeObjectField("rotation", shape.getRotation());
+                gen.writeNumberField("speed", shape.getSpeed());
+                gen.writeEndObject();
+            }
             //particleObject.add("data", jsonSerializationContext.serialize(particle.getData(), particle.getDataClass()));
             gen.writeEndObject();
         }
@@ -121,7 +136,7 @@ public class ParticleSerialization {
                         org.bukkit.Particle particleType = org.bukkit.Particle.valueOf(namespacedKey.getKey().toUpperCase(Locale.ROOT));
                         resultParticle.setParticle(particleType);
                     } else {
-                        Particle particle1 = Particles.getParticles().get(namespacedKey);
+                        Particle particle1 = Particles.getParticle(namespacedKey);
                         resultParticle = new Particle(particle1);
                         resultParticle.setSuperParticle(namespacedKey);
                     }
@@ -161,6 +176,11 @@ public class ParticleSerialization {
                 if (node.has("scripts")) {
                     node.get("scripts").elements().forEachRemaining(script -> resultParticle.addScript(script.asText()));
                 }
+                if (node.has("shape")) {
+                    JsonNode shape = node.get("shape");
+                    Vector rotation = shape.has("rotation") ? JacksonUtil.getObjectMapper().convertValue(shape.get("rotation"), Vector.class) : new Vector(0, 0, 0);
+                    resultParticle.setShape(new ParticleShape(ParticleShape.Type.of(shape.path("type").asText("ring")), shape.path("radius").asDouble(1), shape.path("points").asInt(16), shape.path("height").asDouble(1), shape.path("turns").asDouble(1), rotation, shape.path("speed").asInt(0)));
+                }
                 return resultParticle;
             }
             return null;
@@ -0,0 +1,135 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * The owner of an active ParticleEffect, which decides when the effect is removed.
+ * <p>
+ * Effects of a player are removed when the player quits.
+ * Effects of a block are removed when their chunk is unloaded.
+ * Effects of a block or a location are removed when their world is unloaded.
+ */
+public class EffectOwner {
+
+    private final Type type;
+    private final UUID worldUID;
+    private final int chunkX;
+    private final int chunkZ;
+    private final UUID player;
+    private final EquipmentSlot slot;
+
+    private EffectOwner(Type type, @Nullable UUID worldUID, int chunkX, int chunkZ, @Nullable UUID player, @Nullable EquipmentSlot slot) {
+        this.type = type;
+        this.worldUID = worldUID;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.player = player;
+        this.slot = slot;
+    }
+
+    public static EffectOwner block(Block block) {
+        return new EffectOwner(Type.BLOCK, block.getWorld().getUID(), block.getX() >> 4, block.getZ() >> 4, null, null);
+    }
+
+    public static EffectOwner location(Location location) {
+        return new EffectOwner(Type.LOCATION, location.getWorld() != null ? location.getWorld().getUID() : null, location.getBlockX() >> 4, location.getBlockZ() >> 4, null, null);
+    }
+
+    public static EffectOwner player(Player player, EquipmentSlot slot) {
+        return new EffectOwner(Type.PLAYER, null, 0, 0, player.getUniqueId(), slot);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the world of the block or location or null if it is a player
+     */
+    @Nullable
+    public UUID getWorldUID() {
+        return worldUID;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    /**
+     * @return the uuid of the player or null if it isn't a player
+     */
+    @Nullable
+    public UUID getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return the slot of the player or null if it isn't a player
+     */
+    @Nullable
+    public EquipmentSlot getSlot() {
+        return slot;
+    }
+
+    /**
+     * Checks if the owner still exists. Must be called on the main thread.
+     *
+     * @return true if the player is online or the world (and the chunk of the block) is loaded
+     */
+    public boolean isValid() {
+        switch (type) {
+            case PLAYER:
+                Player onlinePlayer = Bukkit.getPlayer(player);
+                return onlinePlayer != null && onlinePlayer.isOnline();
+            case BLOCK:
+                World world = worldUID != null ? Bukkit.getWorld(worldUID) : null;
+                return world != null && world.isChunkLoaded(chunkX, chunkZ);
+            default:
+                return worldUID != null && Bukkit.getWorld(worldUID) != null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EffectOwner)) return false;
+        EffectOwner that = (EffectOwner) o;
+        return chunkX == that.chunkX && chunkZ == that.chunkZ && type == that.type && Objects.equals(worldUID, that.worldUID) && Objects.equals(player, that.player) && slot == that.slot;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, worldUID, chunkX, chunkZ, player, slot);
+    }
+
+    @Override
+    public String toString() {
+        return "EffectOwner{" +
+                "type=" + type +
+                ", worldUID=" + worldUID +
+                ", chunkX=" + chunkX +
+                ", chunkZ=" + chunkZ +
+                ", player=" + player +
+                ", slot=" + slot +
+                '}';
+    }
+
+    public enum Type {
+        BLOCK,
+        PLAYER,
+        LOCATION
+    }
+}
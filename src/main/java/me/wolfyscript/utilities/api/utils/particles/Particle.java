@@ -5,22 +5,15 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.utils.NamespacedKey;
 import me.wolfyscript.utilities.api.utils.json.jackson.serialization.ParticleSerialization;
-import me.wolfyscript.utilities.api.utils.scripting.ScriptUtil;
-import me.wolfyscript.utilities.main.WUPlugin;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.util.Vector;
 
 import javax.annotation.Nullable;
-import javax.script.Invocable;
-import javax.script.ScriptException;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +24,9 @@ Contains the location, offset, ParticleEffects, etc.
 @JsonDeserialize(using = ParticleSerialization.Deserializer.class)
 public class Particle {
 
+    //The location of the block or player is only read, so it is reused by each spawn of the thread. The scripts get a copy of it.
+    private static final ThreadLocal<Location> scratchLocation = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+
     private NamespacedKey namespacedKey;
     private NamespacedKey superParticle;
     private org.bukkit.Particle particle;
@@ -44,6 +40,12 @@ public class Particle {
     private Integer count;
     private Double extra;
     private List<String> scripts;
+    private ParticleShape shape;
+    private volatile ParticleScript script;
+    private volatile ParticleAnimation animation;
+    //The key and length of the animation that is currently baked or was baked last, so it is only baked once.
+    private volatile long bakingKey;
+    private volatile int bakingLength;
 
     public Particle(Particle particle) {
         this.particle = particle.getParticle();
@@ -59,6 +61,7 @@ public class Particle {
         this.count = particle.getCount();
         this.extra = particle.getExtra();
         this.scripts = particle.getScripts();
+        this.shape = particle.getShape();
     }
 
     public Particle() {
@@ -229,6 +232,17 @@ public class Particle {
         this.scripts = scripts;
     }
 
+    /**
+     * @return the shape the particle is spawned in or null if it is only spawned at its relative location
+     */
+    public ParticleShape getShape() {
+        return shape;
+    }
+
+    public void setShape(ParticleShape shape) {
+        this.shape = shape;
+    }
+
     public List<String> getDescription() {
         return description;
     }
@@ -258,87 +272,170 @@ public class Particle {
                 ", count=" + count +
                 ", extra=" + extra +
                 ", scripts=" + scripts +
+                ", shape=" + shape +
                 ", name='" + name + '\'' +
                 ", description=" + description +
                 '}';
     }
 
-    void prepare(String referencePath) {
-        if (WolfyUtilities.hasJavaXScripting() && getScripts() != null) {
-            scripts.forEach(script -> {
-                try {
-                    if (script.startsWith("file=")) {
-                        ScriptUtil.getEngine().eval(new FileReader(referencePath + File.separator + script.substring("file=".length())));
-                    } else {
-                        ScriptUtil.getEngine().eval(script);
-                    }
-                } catch (IOException | ScriptException e) {
-                    WUPlugin.getWolfyUtilities().sendDebugMessage(e.getMessage());
+    /**
+     * Compiles the scripts, unless they didn't change since the last time.
+     * If the bake length is greater than 0, the scripts are baked into a {@link ParticleAnimation} of that length, which is then used instead of the scripts.
+     * The animation is baked asynchronously, the scripts are used until it is done.
+     *
+     * @param referencePath the directory the "file=" scripts are relative to
+     * @param bakeLength    the amount of ticks to bake or 0 to not bake the scripts
+     */
+    void prepare(String referencePath, int bakeLength) {
+        if (WolfyUtilities.hasJavaXScripting() && scripts != null && !scripts.isEmpty()) {
+            ParticleScript current = script;
+            if (current == null || !current.matches(scripts, referencePath)) {
+                current = ParticleScript.create(scripts, referencePath, name != null ? name : String.valueOf(namespacedKey));
+                script = current;
+            }
+            if (current != null && bakeLength > 0) {
+                long key = ParticleAnimation.createKey(this, current);
+                ParticleAnimation baked = animation;
+                if ((baked == null || !baked.matches(key, bakeLength)) && (bakingKey != key || bakingLength != bakeLength)) {
+                    animation = null;
+                    bakingKey = key;
+                    bakingLength = bakeLength;
+                    ParticleScript bakedScript = current;
+                    ParticleAnimation.loadOrBakeAsync(this, current, referencePath, bakeLength).whenComplete((result, e) -> {
+                        if (e != null) {
+                            e.printStackTrace();
+                        } else if (script == bakedScript && bakingKey == key && bakingLength == bakeLength) {
+                            animation = result;
+                        }
+                    });
                 }
-            });
+                return;
+            }
+        } else {
+            script = null;
         }
+        animation = null;
+        bakingLength = 0;
     }
 
     public void spawnOnLocation(Location location, int tick) {
-        Data particleData = new Data(this);
-        if (WolfyUtilities.hasJavaXScripting() && scripts != null && !scripts.isEmpty()) {
-            Invocable invocable = (Invocable) ScriptUtil.getEngine();
-            try {
-                invocable.invokeFunction("onLocation", location, particleData, tick);
-            } catch (ScriptException | NoSuchMethodException e) {
-                e.printStackTrace();
-            }
-        }
-        spawn(location, particleData);
+        spawnOnLocation(location, tick, false);
     }
 
     public void spawnOnBlock(Block block, int tick) {
-        Location location = block.getLocation();
-        Data particleData = new Data(this);
-        if (WolfyUtilities.hasJavaXScripting() && scripts != null && !scripts.isEmpty()) {
-            Invocable invocable = (Invocable) ScriptUtil.getEngine();
-            try {
-                invocable.invokeFunction("onBlock", block, location, particleData, tick);
-            } catch (ScriptException | NoSuchMethodException e) {
-                e.printStackTrace();
-            }
-        }
-        spawn(location, particleData);
+        spawnOnBlock(block, block.getLocation(scratchLocation.get()), tick);
     }
 
     public void spawnOnPlayer(Player player, EquipmentSlot slot, int tick) {
-        Location location = player.getLocation();
-        Data particleData = new Data(this);
-        if (WolfyUtilities.hasJavaXScripting() && scripts != null && !scripts.isEmpty()) {
-            Invocable invocable = (Invocable) ScriptUtil.getEngine();
-            try {
-                invocable.invokeFunction("onPlayer", player, slot, location, particleData, tick);
-            } catch (ScriptException | NoSuchMethodException e) {
-                e.printStackTrace();
-            }
+        spawnOnPlayer(player, slot, player.getLocation(scratchLocation.get()), tick);
+    }
+
+    /**
+     * @param location the location of the effect, which is only read
+     * @param reused   true if the location is reused, so the script gets a copy of it
+     */
+    void spawnOnLocation(Location location, int tick, boolean reused) {
+        ParticleScript current = script;
+        if (current == null) {
+            spawn(location, tick);
+        } else if (!spawnFrame(ParticleAnimation.LOCATION, location, tick)) {
+            Data particleData = Data.reset(this);
+            current.invoke(ParticleEngine.getCurrentInstance(), "onLocation", reused ? location.clone() : location, particleData, tick);
+            spawn(location, tick, particleData);
         }
-        spawn(location, particleData);
     }
 
-    private void spawn(Location location, Data particleData) {
-        spawn(location, particleData.relative, particleData.count, particleData.offset, particleData.extra, particleData.data);
+    /**
+     * @param block    the block or a snapshot of it, which is passed to the script
+     * @param location the location of the block, which is only read
+     */
+    void spawnOnBlock(Object block, Location location, int tick) {
+        ParticleScript current = script;
+        if (current == null) {
+            spawn(location, tick);
+        } else if (!spawnFrame(ParticleAnimation.BLOCK, location, tick)) {
+            Data particleData = Data.reset(this);
+            current.invoke(ParticleEngine.getCurrentInstance(), "onBlock", block, location.clone(), particleData, tick);
+            spawn(location, tick, particleData);
+        }
     }
 
-    private void spawn(Location location, Vector relative, int count, Vector offset, double extra, @Nullable Object data) {
-        Bukkit.getScheduler().runTask(WUPlugin.getInstance(), () -> {
-            if (location.getWorld() != null) {
-                if (getDataClass() == null || !getDataClass().isInstance(data)) {
-                    location.getWorld().spawnParticle(getParticle(), location.add(relative), count, offset.getX(), offset.getY(), offset.getZ(), extra);
-                } else {
-                    location.getWorld().spawnParticle(getParticle(), location.add(relative), count, offset.getX(), offset.getY(), offset.getZ(), extra, data);
-                }
+    /**
+     * @param location the location of the player, which is only read
+     */
+    void spawnOnPlayer(Player player, EquipmentSlot slot, Location location, int tick) {
+        ParticleScript current = script;
+        if (current == null) {
+            spawn(location, tick);
+        } else if (!spawnFrame(ParticleAnimation.PLAYER, location, tick)) {
+            Data particleData = Data.reset(this);
+            current.invoke(ParticleEngine.getCurrentInstance(), "onPlayer", player, slot, location.clone(), particleData, tick);
+            spawn(location, tick, particleData);
+        }
+    }
+
+    /**
+     * Spawns the baked frame of the tick, if there is one.
+     *
+     * @return true if the frame was spawned, false if the script needs to be invoked instead
+     */
+    private boolean spawnFrame(int function, Location location, int tick) {
+        ParticleAnimation current = animation;
+        if (current == null || script != null && script.isDisabled()) return false;
+        ParticleAnimation.Frames frames = current.getFrames(function);
+        if (frames == null || tick < 0 || tick >= frames.length()) return false;
+        spawn(location, tick, frames.getRelativeX(tick), frames.getRelativeY(tick), frames.getRelativeZ(tick), frames.getCount(tick), frames.getOffsetX(tick), frames.getOffsetY(tick), frames.getOffsetZ(tick), frames.getExtra(tick), data);
+        return true;
+    }
+
+    /**
+     * Spawns the particle with its own values.
+     */
+    private void spawn(Location location, int tick) {
+        spawn(location, tick, relative.getX(), relative.getY(), relative.getZ(), count == null ? 1 : count, offset.getX(), offset.getY(), offset.getZ(), extra == null ? 1 : extra, data);
+    }
+
+    private void spawn(Location location, int tick, Data particleData) {
+        spawn(location, tick, particleData.relative.getX(), particleData.relative.getY(), particleData.relative.getZ(), particleData.count, particleData.offset.getX(), particleData.offset.getY(), particleData.offset.getZ(), particleData.extra, particleData.data);
+    }
+
+    /**
+     * Spawns the particle at the relative location or at each point of the shape around it.
+     */
+    private void spawn(Location location, int tick, double relativeX, double relativeY, double relativeZ, int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data) {
+        World world = location.getWorld();
+        if (world == null) return;
+        Object particleData = getDataClass() != null && getDataClass().isInstance(data) ? data : null;
+        double x = location.getX() + relativeX;
+        double y = location.getY() + relativeY;
+        double z = location.getZ() + relativeZ;
+        ParticleShape currentShape = shape;
+        if (currentShape == null) {
+            ParticleEngine.spawn(world, particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, particleData);
+            return;
+        }
+        float[] offsets = currentShape.getOffsets();
+        int points = offsets.length / 3;
+        int amount = currentShape.getPointsPerTick();
+        int point = currentShape.getFirstPoint(tick);
+        for (int i = 0; i < amount; i++) {
+            int index = point * 3;
+            ParticleEngine.spawn(world, particle, x + offsets[index], y + offsets[index + 1], z + offsets[index + 2], count, offsetX, offsetY, offsetZ, extra, particleData);
+            if (++point == points) {
+                point = 0;
             }
-        });
+        }
     }
 
     public static class Data {
 
-        private final Class<?> dataClass;
+        //Reused by each script invocation of the thread.
+        private static final ThreadLocal<Data> scratch = ThreadLocal.withInitial(Data::new);
+
+        private final Vector scratchRelative = new Vector();
+        private final Vector scratchOffset = new Vector();
+
+        private Class<?> dataClass;
         private Object data;
         private Vector relative, offset;
         private int count;
@@ -353,6 +450,26 @@ public class Particle {
             this.extra = particle.getExtra() == null ? 1 : particle.getExtra();
         }
 
+        private Data() {
+        }
+
+        /**
+         * Resets the Data of the current thread to the values of the particle.
+         *
+         * @param particle the particle
+         * @return the Data of the current thread, which must not be kept after the particle is spawned
+         */
+        static Data reset(Particle particle) {
+            Data data = scratch.get();
+            data.dataClass = particle.getDataClass();
+            data.relative = data.scratchRelative.setX(particle.getRelative().getX()).setY(particle.getRelative().getY()).setZ(particle.getRelative().getZ());
+            data.offset = data.scratchOffset.setX(particle.getOffset().getX()).setY(particle.getOffset().getY()).setZ(particle.getOffset().getZ());
+            data.data = particle.getData();
+            data.count = particle.getCount() == null ? 1 : particle.getCount();
+            data.extra = particle.getExtra() == null ? 1 : particle.getExtra();
+            return data;
+        }
+
         public Object getData() {
             return data;
         }
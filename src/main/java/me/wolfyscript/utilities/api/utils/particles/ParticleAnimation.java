@@ -0,0 +1,306 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import me.wolfyscript.utilities.main.WUPlugin;
+import org.bukkit.util.Vector;
+import org.jetbrains.annotations.Nullable;
+
+import javax.script.Bindings;
+import javax.script.ScriptException;
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The baked animation of a {@link Particle}, that contains the {@link Particle.Data} of each tick of the script functions.
+ * <p>
+ * The scripts are invoked once for each tick of the duration of the effect and the resulting data is recorded into primitive arrays.
+ * Those are replayed afterwards, without invoking the scripts or allocating the Data.
+ * This only works for scripts that are a pure function of the tick, so they are baked twice and only used if both runs are equal.
+ * The second run continues with the Bindings of the first one, like the next cycle of the effect does, so scripts that keep state in their globals don't match.
+ * The other arguments (block, player, slot and location) are null while baking. If a function fails, it isn't baked and the script is used instead.
+ * <p>
+ * The animations are cached in the "baked" folder next to the particle_effects.json, keyed by the hash of the scripts and the particle.
+ * They are loaded and baked on a separate thread (see {@link #loadOrBakeAsync(Particle, ParticleScript, String, int)}), so the {@link ParticleEngine} isn't blocked.
+ */
+class ParticleAnimation {
+
+    static final int LOCATION = 0;
+    static final int BLOCK = 1;
+    static final int PLAYER = 2;
+
+    private static final String[] FUNCTIONS = {"onLocation", "onBlock", "onPlayer"};
+    private static final int MAGIC = 0x57555041;
+    private static final int VERSION = 1;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WolfyUtilities Particle Baker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long key;
+    private final int length;
+    private final Frames[] frames;
+
+    private ParticleAnimation(long key, int length, Frames[] frames) {
+        this.key = key;
+        this.length = length;
+        this.frames = frames;
+    }
+
+    /**
+     * @param particle the particle
+     * @param script   the script of the particle
+     * @return the key of the animation, which changes if the scripts or the values of the particle change
+     */
+    static long createKey(Particle particle, ParticleScript script) {
+        Vector relative = particle.getRelative();
+        Vector offset = particle.getOffset();
+        int stateHash = Arrays.hashCode(new double[]{relative.getX(), relative.getY(), relative.getZ(), offset.getX(), offset.getY(), offset.getZ(), particle.getExtra() == null ? 1 : particle.getExtra(), particle.getCount() == null ? 1 : particle.getCount()});
+        return ((long) script.getSourceHash() << 32) | (stateHash & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Loads the animation from the cache or bakes it on the baker thread.
+     *
+     * @param particle      the particle to bake
+     * @param script        the script of the particle
+     * @param referencePath the folder of the particle_effects.json or null if the animation shouldn't be cached
+     * @param length        the amount of ticks to bake
+     * @return the future that is completed with the animation
+     */
+    static CompletableFuture<ParticleAnimation> loadOrBakeAsync(Particle particle, ParticleScript script, @Nullable String referencePath, int length) {
+        return CompletableFuture.supplyAsync(() -> loadOrBake(particle, script, referencePath, length), executor);
+    }
+
+    /**
+     * Loads the animation from the cache or bakes it, if it isn't cached yet.
+     *
+     * @param particle      the particle to bake
+     * @param script        the script of the particle
+     * @param referencePath the folder of the particle_effects.json or null if the animation shouldn't be cached
+     * @param length        the amount of ticks to bake
+     * @return the animation
+     */
+    static ParticleAnimation loadOrBake(Particle particle, ParticleScript script, @Nullable String referencePath, int length) {
+        long key = createKey(particle, script);
+        File file = referencePath != null ? new File(referencePath + File.separator + "baked", Long.toHexString(key) + "_" + length + ".bin") : null;
+        if (file != null && file.exists()) {
+            try {
+                ParticleAnimation animation = read(file, key, length);
+                if (animation != null) {
+                    return animation;
+                }
+            } catch (IOException e) {
+                WUPlugin.getWolfyUtilities().sendDebugMessage("Failed to read baked particle animation " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        Frames[] frames = new Frames[FUNCTIONS.length];
+        for (int i = 0; i < FUNCTIONS.length; i++) {
+            Bindings bindings = script.createBindings();
+            Frames first = bake(particle, script, bindings, FUNCTIONS[i], length);
+            frames[i] = first != null && first.equals(bake(particle, script, bindings, FUNCTIONS[i], length)) ? first : null;
+        }
+        ParticleAnimation animation = new ParticleAnimation(key, length, frames);
+        if (file != null) {
+            try {
+                animation.write(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return animation;
+    }
+
+    @Nullable
+    private static Frames bake(Particle particle, ParticleScript script, Bindings bindings, String function, int length) {
+        Frames frames = new Frames(length);
+        for (int tick = 0; tick < length; tick++) {
+            Particle.Data data = new Particle.Data(particle);
+            try {
+                switch (function) {
+                    case "onLocation":
+                        script.invokeDirect(bindings, function, null, data, tick);
+                        break;
+                    case "onBlock":
+                        script.invokeDirect(bindings, function, null, null, data, tick);
+                        break;
+                    default:
+                        script.invokeDirect(bindings, function, null, null, null, data, tick);
+                }
+            } catch (NoSuchMethodException ignored) {
+                //The data stays the same for each tick.
+            } catch (ScriptException | RuntimeException e) {
+                return null;
+            }
+            if (data.getData() != particle.getData() || data.getRelative() == null || data.getOffset() == null) {
+                //The particle data of the frames can't be baked.
+                return null;
+            }
+            frames.set(tick, data);
+        }
+        return frames;
+    }
+
+    boolean matches(long key, int length) {
+        return this.key == key && this.length == length;
+    }
+
+    /**
+     * @param function the function of the script (LOCATION, BLOCK or PLAYER)
+     * @return the frames of the function or null if it isn't baked
+     */
+    @Nullable
+    Frames getFrames(int function) {
+        return frames[function];
+    }
+
+    @Nullable
+    private static ParticleAnimation read(File file, long key, int length) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != key || in.readInt() != length) {
+                return null;
+            }
+            Frames[] frames = new Frames[FUNCTIONS.length];
+            for (int i = 0; i < FUNCTIONS.length; i++) {
+                if (in.readBoolean()) {
+                    frames[i] = Frames.read(in, length);
+                }
+            }
+            return new ParticleAnimation(key, length, frames);
+        }
+    }
+
+    private void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(key);
+            out.writeInt(length);
+            for (Frames frame : frames) {
+                out.writeBoolean(frame != null);
+                if (frame != null) {
+                    frame.write(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * The baked data of each tick of a single function.
+     */
+    static class Frames {
+
+        private final float[] relative;
+        private final float[] offset;
+        private final int[] counts;
+        private final float[] extras;
+
+        private Frames(int length) {
+            this.relative = new float[length * 3];
+            this.offset = new float[length * 3];
+            this.counts = new int[length];
+            this.extras = new float[length];
+        }
+
+        private void set(int tick, Particle.Data data) {
+            int index = tick * 3;
+            relative[index] = (float) data.getRelative().getX();
+            relative[index + 1] = (float) data.getRelative().getY();
+            relative[index + 2] = (float) data.getRelative().getZ();
+            offset[index] = (float) data.getOffset().getX();
+            offset[index + 1] = (float) data.getOffset().getY();
+            offset[index + 2] = (float) data.getOffset().getZ();
+            counts[tick] = data.getCount();
+            extras[tick] = (float) data.getExtra();
+        }
+
+        int length() {
+            return counts.length;
+        }
+
+        double getRelativeX(int tick) {
+            return relative[tick * 3];
+        }
+
+        double getRelativeY(int tick) {
+            return relative[tick * 3 + 1];
+        }
+
+        double getRelativeZ(int tick) {
+            return relative[tick * 3 + 2];
+        }
+
+        double getOffsetX(int tick) {
+            return offset[tick * 3];
+        }
+
+        double getOffsetY(int tick) {
+            return offset[tick * 3 + 1];
+        }
+
+        double getOffsetZ(int tick) {
+            return offset[tick * 3 + 2];
+        }
+
+        int getCount(int tick) {
+            return counts[tick];
+        }
+
+        double getExtra(int tick) {
+            return extras[tick];
+        }
+
+        private static Frames read(DataInputStream in, int length) throws IOException {
+            Frames frames = new Frames(length);
+            for (int i = 0; i < length * 3; i++) {
+                frames.relative[i] = in.readFloat();
+            }
+            for (int i = 0; i < length * 3; i++) {
+                frames.offset[i] = in.readFloat();
+            }
+            for (int i = 0; i < length; i++) {
+                frames.counts[i] = in.readInt();
+            }
+            for (int i = 0; i < length; i++) {
+                frames.extras[i] = in.readFloat();
+            }
+            return frames;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            for (float value : relative) {
+                out.writeFloat(value);
+            }
+            for (float value : offset) {
+                out.writeFloat(value);
+            }
+            for (int value : counts) {
+                out.writeInt(value);
+            }
+            for (float value : extras) {
+                out.writeFloat(value);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Frames)) return false;
+            Frames frames = (Frames) o;
+            return Arrays.equals(relative, frames.relative) && Arrays.equals(offset, frames.offset) && Arrays.equals(counts, frames.counts) && Arrays.equals(extras, frames.extras);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Arrays.hashCode(relative);
+            result = 31 * result + Arrays.hashCode(offset);
+            result = 31 * result + Arrays.hashCode(counts);
+            result = 31 * result + Arrays.hashCode(extras);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the amount of particles the {@link ParticleEngine} sends per tick.
+ * <p>
+ * Each particle is counted once for each player it is sent to.
+ * The count of a particle is scaled down by the distance of the player to the origin of the effect, using the level of detail tiers.
+ * If an effect would exceed the global or the world budget, all of its particles of that tick are dropped.
+ * The engine starts with the first dropped effect in the next tick, so the effects take turns when the budget isn't enough for all of them.
+ */
+public class ParticleBudget {
+
+    private static volatile int maxParticlesPerTick = 5000;
+    private static final Map<String, Integer> worldLimits = new ConcurrentHashMap<>();
+    private static volatile LevelsOfDetail levelsOfDetail = new LevelsOfDetail(new double[]{16, 32}, new double[]{1.0, 0.5, 0.25});
+
+    private static volatile int lastSpawned = 0;
+    private static volatile int lastDropped = 0;
+    private static volatile int lastDegraded = 0;
+    private static final LongAdder totalSpawned = new LongAdder();
+    private static final LongAdder totalDropped = new LongAdder();
+    private static final LongAdder totalDegraded = new LongAdder();
+
+    //Only accessed by the engine thread.
+    private static final Map<World, int[]> worldUsage = new HashMap<>();
+    private static int used = 0;
+    private static int dropped = 0;
+    private static int degraded = 0;
+
+    private ParticleBudget() {
+    }
+
+    /**
+     * @return the maximum amount of particles per tick or 0 if it is unlimited
+     */
+    public static int getMaxParticlesPerTick() {
+        return maxParticlesPerTick;
+    }
+
+    public static void setMaxParticlesPerTick(int maxParticlesPerTick) {
+        ParticleBudget.maxParticlesPerTick = Math.max(0, maxParticlesPerTick);
+    }
+
+    /**
+     * @param world the name of the world
+     * @return the maximum amount of particles per tick in the world or null if only the global limit applies
+     */
+    public static Integer getWorldLimit(String world) {
+        return worldLimits.get(world);
+    }
+
+    /**
+     * @param world the name of the world
+     * @param limit the maximum amount of particles per tick in the world or null to remove the limit
+     */
+    public static void setWorldLimit(String world, Integer limit) {
+        if (limit == null) {
+            worldLimits.remove(world);
+        } else {
+            worldLimits.put(world, Math.max(0, limit));
+        }
+    }
+
+    /**
+     * Sets the level of detail tiers.
+     * The count of a particle is multiplied by the factor of the first tier, whose distance is greater than the distance of the player.
+     * The last factor is used for all the players beyond the last distance.
+     * A factor of 0 doesn't send the particles to the player at all.
+     *
+     * @param distances the maximum distances of the tiers in ascending order
+     * @param factors   the factors of the tiers, which must contain one more value than the distances
+     */
+    public static void setLevelsOfDetail(double[] distances, double[] factors) {
+        if (factors.length != distances.length + 1) {
+            throw new IllegalArgumentException("There must be exactly one more factor than distances!");
+        }
+        levelsOfDetail = new LevelsOfDetail(distances.clone(), factors.clone());
+    }
+
+    /**
+     * @param distanceSquared the squared distance of the player to the origin of the effect
+     * @return the factor the count of the particles is multiplied with
+     */
+    public static double getFactor(double distanceSquared) {
+        return levelsOfDetail.getFactor(distanceSquared);
+    }
+
+    /**
+     * Scales the count of a particle. A count of 0 isn't changed, because it makes the offset the direction of the particle.
+     *
+     * @param count  the count of the particle
+     * @param factor the factor of the level of detail
+     * @return the scaled count, that is at least 1 if the count was greater than 0
+     */
+    public static int scale(int count, double factor) {
+        if (count <= 0 || factor >= 1) return count;
+        return Math.max(1, (int) Math.round(count * factor));
+    }
+
+    /**
+     * @return the amount of particles that were sent in the last tick
+     */
+    public static int getLastSpawned() {
+        return lastSpawned;
+    }
+
+    /**
+     * @return the amount of particles that were dropped in the last tick, because the budget was exceeded
+     */
+    public static int getLastDropped() {
+        return lastDropped;
+    }
+
+    /**
+     * @return the amount of particles that were removed in the last tick by the level of detail
+     */
+    public static int getLastDegraded() {
+        return lastDegraded;
+    }
+
+    public static long getTotalSpawned() {
+        return totalSpawned.sum();
+    }
+
+    public static long getTotalDropped() {
+        return totalDropped.sum();
+    }
+
+    public static long getTotalDegraded() {
+        return totalDegraded.sum();
+    }
+
+    /**
+     * Consumes the budget of the particles of an effect. Only called by the engine thread.
+     *
+     * @param world         the world of the effect
+     * @param cost          the amount of particles that are sent
+     * @param degradedCount the amount of particles that were removed by the level of detail
+     * @return true if the particles can be sent, false if they must be dropped
+     */
+    static boolean tryConsume(World world, int cost, int degradedCount) {
+        int max = maxParticlesPerTick;
+        int[] worldUsed = worldUsage.computeIfAbsent(world, key -> new int[1]);
+        Integer worldLimit = worldLimits.get(world.getName());
+        if ((max > 0 && used + cost > max) || (worldLimit != null && worldUsed[0] + cost > worldLimit)) {
+            dropped += cost;
+            return false;
+        }
+        used += cost;
+        worldUsed[0] += cost;
+        degraded += degradedCount;
+        return true;
+    }
+
+    /**
+     * Publishes the statistics of the tick and resets the budget. Only called by the engine thread.
+     */
+    static void endTick() {
+        lastSpawned = used;
+        lastDropped = dropped;
+        lastDegraded = degraded;
+        totalSpawned.add(used);
+        totalDropped.add(dropped);
+        totalDegraded.add(degraded);
+        worldUsage.clear();
+        used = 0;
+        dropped = 0;
+        degraded = 0;
+    }
+
+    private static class LevelsOfDetail {
+
+        private final double[] distancesSquared;
+        private final double[] factors;
+
+        private LevelsOfDetail(double[] distances, double[] factors) {
+            this.distancesSquared = Arrays.stream(distances).map(distance -> distance * distance).toArray();
+            this.factors = factors;
+        }
+
+        private double getFactor(double distanceSquared) {
+            for (int i = 0; i < distancesSquared.length; i++) {
+                if (distanceSquared < distancesSquared[i]) {
+                    return factors[i];
+                }
+            }
+            return factors[distancesSquared.length];
+        }
+    }
+}
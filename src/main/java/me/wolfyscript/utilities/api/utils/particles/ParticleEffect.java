@@ -16,6 +16,9 @@ import java.util.List;
 @JsonDeserialize(using = ParticleEffectSerialization.Deserializer.class)
 public class ParticleEffect {
 
+    //The location is only read by the particles, so it is reused by each spawn of the thread.
+    private static final ThreadLocal<Location> scratchLocation = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+
     private List<Particle> particles = new ArrayList<>();
 
     private Material icon;
@@ -27,6 +30,7 @@ public class ParticleEffect {
     private int count;
     private int duration;
     private int cooldown;
+    private boolean bake;
 
     public ParticleEffect() {
 
@@ -92,31 +96,63 @@ public class ParticleEffect {
         this.cooldown = cooldown;
     }
 
+    /**
+     * @return true if the scripts of the particles are baked into frames for the duration of the effect
+     */
+    public boolean isBake() {
+        return bake;
+    }
+
+    /**
+     * Baked scripts are only invoked once for each tick of the duration and then replayed.
+     * This only works for scripts that only depend on the tick and the particle data, like the flame_spiral_down.js.
+     *
+     * @param bake true to bake the scripts of the particles
+     */
+    public void setBake(boolean bake) {
+        this.bake = bake;
+    }
+
     public void addParticle(Particle particle){
         particles.add(particle);
     }
 
     void prepare(){
         for(Particle particle : particles){
-            particle.prepare(referencePath);
+            particle.prepare(referencePath, bake ? duration + 1 : 0);
         }
     }
 
     public void spawnOnLocation(Location location, int tick){
         for(Particle particle : getParticles()){
-            particle.spawnOnLocation(location, tick);
+            particle.spawnOnLocation(location, tick, false);
         }
     }
 
     public void spawnOnBlock(Block block, int tick) {
+        spawnOnBlock(block, block.getLocation(scratchLocation.get()), tick);
+    }
+
+    /**
+     * @param block    the block or a snapshot of it, which is passed to the scripts
+     * @param location the location of the block, which is only read
+     */
+    void spawnOnBlock(Object block, Location location, int tick) {
         for(Particle particle : getParticles()){
-            particle.spawnOnBlock(block, tick);
+            particle.spawnOnBlock(block, location, tick);
         }
     }
 
     public void spawnOnPlayer(Player player, EquipmentSlot slot, int tick) {
+        spawnOnPlayer(player, slot, player.getLocation(scratchLocation.get()), tick);
+    }
+
+    /**
+     * @param location the location of the player, which is only read
+     */
+    void spawnOnPlayer(Player player, EquipmentSlot slot, Location location, int tick) {
         for (Particle particle : particles) {
-            particle.spawnOnPlayer(player, slot, tick);
+            particle.spawnOnPlayer(player, slot, location, tick);
         }
     }
 
@@ -131,6 +167,7 @@ public class ParticleEffect {
                 ", count=" + count +
                 ", duration=" + duration +
                 ", cooldown=" + cooldown +
+                ", bake=" + bake +
                 '}';
     }
 
@@ -0,0 +1,170 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import org.bukkit.Location;
+import org.jetbrains.annotations.Nullable;
+
+import javax.script.Bindings;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * An active ParticleEffect, that is identified by the UUID returned from the spawnEffect methods in {@link ParticleEffects}.
+ * The instances are registered in the {@link ParticleEffectRegistry}.
+ * <p>
+ * Each cycle of the effect starts after the cooldown. The effect is then prepared and emitted for each tick from 0 until the duration.
+ * If the effect was replaced in {@link ParticleEffects}, the instance switches to the new one at the start of the next cycle.
+ * The instances are only advanced by the {@link ParticleEngine}.
+ */
+class ParticleEffectInstance {
+
+    private final UUID uuid;
+    private final NamespacedKey effectKey;
+    private volatile ParticleEffect effect;
+    private final Emitter emitter;
+    private final Supplier<Location> origin;
+    private final EffectOwner owner;
+
+    private volatile boolean cancelled = false;
+    private volatile boolean dormant = false;
+
+    //Only accessed by the engine thread.
+    private int tick = -1;
+    private long nextTick;
+    private boolean starved = false;
+    private final Map<ParticleScript, Bindings> bindings = new IdentityHashMap<>();
+
+    /**
+     * @param origin supplies the location the effect is emitted at, which is used to find its viewers
+     * @param owner  the owner of the effect
+     */
+    ParticleEffectInstance(UUID uuid, NamespacedKey effectKey, ParticleEffect effect, Emitter emitter, Supplier<Location> origin, EffectOwner owner) {
+        this.uuid = uuid;
+        this.effectKey = effectKey;
+        this.effect = effect;
+        this.emitter = emitter;
+        this.origin = origin;
+        this.owner = owner;
+    }
+
+    UUID getUuid() {
+        return uuid;
+    }
+
+    NamespacedKey getEffectKey() {
+        return effectKey;
+    }
+
+    EffectOwner getOwner() {
+        return owner;
+    }
+
+    ParticleEffect getEffect() {
+        return effect;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * @return true if the effect is waiting for viewers, before it starts the next cycle
+     */
+    boolean isDormant() {
+        return dormant;
+    }
+
+    void setDormant(boolean dormant) {
+        this.dormant = dormant;
+    }
+
+    /**
+     * @return the current location the effect is emitted at or null if it is unknown
+     */
+    @Nullable
+    Location getOrigin() {
+        return origin.get();
+    }
+
+    /**
+     * @return true if the next step emits particles, false if it prepares a new cycle
+     */
+    boolean isEmitting() {
+        return tick >= 0;
+    }
+
+    /**
+     * @return true if the particles of the last step were dropped, because the budget was exceeded
+     */
+    boolean isStarved() {
+        return starved;
+    }
+
+    void setStarved(boolean starved) {
+        this.starved = starved;
+    }
+
+    long getNextTick() {
+        return nextTick;
+    }
+
+    void setNextTick(long nextTick) {
+        this.nextTick = nextTick;
+    }
+
+    /**
+     * @param script the script of a particle of the effect
+     * @return the Bindings of the script, which keep the global variables of the script for this instance
+     */
+    Bindings getBindings(ParticleScript script) {
+        return bindings.computeIfAbsent(script, ParticleScript::createBindings);
+    }
+
+    /**
+     * @return the delay in ticks until the first cycle starts
+     */
+    int getInitialDelay() {
+        return Math.max(1, effect.getCooldown());
+    }
+
+    /**
+     * Advances the effect by one step.
+     * If the effect isn't visible, the tick is still advanced, so the effect stays in sync, but no particles are emitted.
+     *
+     * @param visible true if there are viewers that could see the particles
+     * @return the delay in ticks until the next step
+     */
+    int advance(boolean visible) {
+        if (tick < 0) {
+            ParticleEffect current = ParticleEffects.getEffect(effectKey);
+            if (current != null && current != effect) {
+                //The effect was replaced, so the new definition is used from this cycle on.
+                effect = current;
+                bindings.clear();
+            }
+            effect.prepare();
+            tick = 0;
+            return 1;
+        }
+        if (visible) {
+            emitter.emit(effect, tick);
+        }
+        if (tick < effect.getDuration()) {
+            tick++;
+            return 1;
+        }
+        tick = -1;
+        return Math.max(1, effect.getCooldown());
+    }
+
+    interface Emitter {
+
+        void emit(ParticleEffect effect, int tick);
+    }
+}
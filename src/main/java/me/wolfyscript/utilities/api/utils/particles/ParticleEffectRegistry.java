@@ -0,0 +1,275 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import org.bukkit.inventory.EquipmentSlot;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Contains the active ParticleEffects and their owners. It is thread-safe.
+ * <p>
+ * The effects are indexed by their owner, so they can be removed together with it.
+ * The effects of the equipment slots of a player are stored in an EnumMap per player.
+ */
+public class ParticleEffectRegistry {
+
+    private static final Map<UUID, ParticleEffectInstance> instances = new ConcurrentHashMap<>();
+    private static final Map<UUID, Set<UUID>> byPlayer = new ConcurrentHashMap<>();
+    private static final Map<UUID, Map<Long, Set<UUID>>> byChunk = new ConcurrentHashMap<>();
+    private static final Map<UUID, EnumMap<EquipmentSlot, UUID>> playerSlots = new ConcurrentHashMap<>();
+
+    private ParticleEffectRegistry() {
+    }
+
+    /**
+     * Registers a new instance with a random unique uuid.
+     *
+     * @param factory creates the instance with the uuid
+     * @return the registered instance
+     */
+    static ParticleEffectInstance register(Function<UUID, ParticleEffectInstance> factory) {
+        ParticleEffectInstance instance;
+        do {
+            instance = factory.apply(UUID.randomUUID());
+        } while (instances.putIfAbsent(instance.getUuid(), instance) != null);
+        index(instance.getUuid(), instance.getOwner());
+        return instance;
+    }
+
+    /**
+     * Stops the instance and removes it from the registry.
+     *
+     * @param uuid the uuid of the instance
+     * @return true if the instance was active
+     */
+    public static boolean stop(UUID uuid) {
+        ParticleEffectInstance instance = instances.remove(uuid);
+        if (instance == null) return false;
+        instance.cancel();
+        unindex(uuid, instance.getOwner());
+        return true;
+    }
+
+    public static boolean isActive(UUID uuid) {
+        return instances.containsKey(uuid);
+    }
+
+    /**
+     * @return the amount of active instances
+     */
+    public static int size() {
+        return instances.size();
+    }
+
+    @Nullable
+    public static EffectOwner getOwner(UUID uuid) {
+        ParticleEffectInstance instance = instances.get(uuid);
+        return instance != null ? instance.getOwner() : null;
+    }
+
+    @Nullable
+    public static NamespacedKey getEffectKey(UUID uuid) {
+        ParticleEffectInstance instance = instances.get(uuid);
+        return instance != null ? instance.getEffectKey() : null;
+    }
+
+    //Player slots
+
+    /**
+     * Sets the active effect of the slot and stops the previous one.
+     *
+     * @param player the uuid of the player
+     * @param slot   the equipment slot
+     * @param effect the uuid of the effect instance or null to only stop the previous one
+     */
+    public static void setPlayerEffect(UUID player, EquipmentSlot slot, @Nullable UUID effect) {
+        EnumMap<EquipmentSlot, UUID> slots = playerSlots.computeIfAbsent(player, uuid -> new EnumMap<>(EquipmentSlot.class));
+        UUID previous;
+        synchronized (slots) {
+            previous = effect != null ? slots.put(slot, effect) : slots.remove(slot);
+        }
+        if (previous != null && !previous.equals(effect)) {
+            stop(previous);
+        }
+    }
+
+    @Nullable
+    public static UUID getPlayerEffect(UUID player, EquipmentSlot slot) {
+        EnumMap<EquipmentSlot, UUID> slots = playerSlots.get(player);
+        if (slots == null) return null;
+        synchronized (slots) {
+            return slots.get(slot);
+        }
+    }
+
+    /**
+     * @param player the uuid of the player
+     * @return a copy of the active effects of the slots of the player
+     */
+    public static EnumMap<EquipmentSlot, UUID> getPlayerEffects(UUID player) {
+        EnumMap<EquipmentSlot, UUID> slots = playerSlots.get(player);
+        if (slots == null) return new EnumMap<>(EquipmentSlot.class);
+        synchronized (slots) {
+            return new EnumMap<>(slots);
+        }
+    }
+
+    public static boolean hasPlayerEffects(UUID player) {
+        return playerSlots.containsKey(player);
+    }
+
+    //Cleanup
+
+    /**
+     * Stops all the effects of the player, including the ones of the slots.
+     *
+     * @param player the uuid of the player
+     */
+    public static void stopPlayer(UUID player) {
+        playerSlots.remove(player);
+        Set<UUID> effects = byPlayer.remove(player);
+        if (effects != null) {
+            effects.forEach(ParticleEffectRegistry::stop);
+        }
+    }
+
+    /**
+     * Stops the effects of the blocks in the chunk.
+     *
+     * @param world  the uuid of the world
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     */
+    public static void stopChunk(UUID world, int chunkX, int chunkZ) {
+        Map<Long, Set<UUID>> chunks = byChunk.get(world);
+        if (chunks == null) return;
+        Set<UUID> effects = chunks.get(chunkKey(chunkX, chunkZ));
+        if (effects == null) return;
+        for (UUID uuid : effects) {
+            ParticleEffectInstance instance = instances.get(uuid);
+            if (instance != null && instance.getOwner().getType() == EffectOwner.Type.BLOCK) {
+                stop(uuid);
+            }
+        }
+    }
+
+    /**
+     * Stops the effects of the blocks and locations in the world.
+     *
+     * @param world the uuid of the world
+     */
+    public static void stopWorld(UUID world) {
+        Map<Long, Set<UUID>> chunks = byChunk.remove(world);
+        if (chunks != null) {
+            chunks.values().forEach(effects -> effects.forEach(ParticleEffectRegistry::stop));
+        }
+    }
+
+    //Introspection
+
+    /**
+     * @return the amount of active instances of each effect
+     */
+    public static Map<NamespacedKey, Integer> countByEffect() {
+        Map<NamespacedKey, Integer> counts = new HashMap<>();
+        for (ParticleEffectInstance instance : instances.values()) {
+            counts.merge(instance.getEffectKey(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the amount of active instances of each owner type
+     */
+    public static Map<EffectOwner.Type, Integer> countByOwnerType() {
+        Map<EffectOwner.Type, Integer> counts = new EnumMap<>(EffectOwner.Type.class);
+        for (ParticleEffectInstance instance : instances.values()) {
+            counts.merge(instance.getOwner().getType(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the amount of active instances, that are waiting for viewers
+     */
+    public static int countDormant() {
+        int dormant = 0;
+        for (ParticleEffectInstance instance : instances.values()) {
+            if (instance.isDormant()) {
+                dormant++;
+            }
+        }
+        return dormant;
+    }
+
+    /**
+     * Finds the handles that should have been removed. Must be called on the main thread.
+     * Those are active instances whose owner doesn't exist anymore and the handles of the owners that refer to instances that are no longer active.
+     *
+     * @return the amount of leaked handles
+     */
+    public static int countLeaked() {
+        int leaked = 0;
+        for (ParticleEffectInstance instance : instances.values()) {
+            if (!instance.getOwner().isValid()) {
+                leaked++;
+            }
+        }
+        for (Set<UUID> effects : byPlayer.values()) {
+            leaked += countInactive(effects);
+        }
+        for (Map<Long, Set<UUID>> chunks : byChunk.values()) {
+            for (Set<UUID> effects : chunks.values()) {
+                leaked += countInactive(effects);
+            }
+        }
+        for (EnumMap<EquipmentSlot, UUID> slots : playerSlots.values()) {
+            synchronized (slots) {
+                leaked += countInactive(slots.values());
+            }
+        }
+        return leaked;
+    }
+
+    private static int countInactive(Collection<UUID> effects) {
+        int inactive = 0;
+        for (UUID uuid : effects) {
+            if (!instances.containsKey(uuid)) {
+                inactive++;
+            }
+        }
+        return inactive;
+    }
+
+    private static void index(UUID uuid, EffectOwner owner) {
+        if (owner.getType() == EffectOwner.Type.PLAYER) {
+            byPlayer.computeIfAbsent(owner.getPlayer(), key -> ConcurrentHashMap.newKeySet()).add(uuid);
+        } else if (owner.getWorldUID() != null) {
+            byChunk.computeIfAbsent(owner.getWorldUID(), key -> new ConcurrentHashMap<>()).computeIfAbsent(chunkKey(owner.getChunkX(), owner.getChunkZ()), key -> ConcurrentHashMap.newKeySet()).add(uuid);
+        }
+    }
+
+    private static void unindex(UUID uuid, EffectOwner owner) {
+        if (owner.getType() == EffectOwner.Type.PLAYER) {
+            byPlayer.computeIfPresent(owner.getPlayer(), (key, effects) -> effects.remove(uuid) && effects.isEmpty() ? null : effects);
+            EnumMap<EquipmentSlot, UUID> slots = playerSlots.get(owner.getPlayer());
+            if (slots != null) {
+                synchronized (slots) {
+                    slots.remove(owner.getSlot(), uuid);
+                }
+            }
+        } else if (owner.getWorldUID() != null) {
+            Map<Long, Set<UUID>> chunks = byChunk.get(owner.getWorldUID());
+            if (chunks != null) {
+                chunks.computeIfPresent(chunkKey(owner.getChunkX(), owner.getChunkZ()), (key, effects) -> effects.remove(uuid) && effects.isEmpty() ? null : effects);
+            }
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
@@ -7,21 +7,18 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import me.wolfyscript.utilities.api.utils.NamespacedKey;
 import me.wolfyscript.utilities.api.utils.json.jackson.JacksonUtil;
-import me.wolfyscript.utilities.main.WUPlugin;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BiConsumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /*
 Contains the ParticleEffects
@@ -29,9 +26,7 @@ Contains the ParticleEffects
 @JsonSerialize(using = ParticleEffects.Serializer.class)
 public class ParticleEffects {
 
-    private static final Map<NamespacedKey, ParticleEffect> particleEffects = new HashMap<>();
-
-    private static final LinkedHashMap<UUID, BukkitTask> currentEffects = new LinkedHashMap<>();
+    private static final Map<NamespacedKey, ParticleEffect> particleEffects = new ConcurrentHashMap<>();
 
     private final String namespace;
     private final String path;
@@ -68,6 +63,7 @@ public class ParticleEffects {
 
     /*
     Puts the given values into the map and replaces the existing Particle Effect.
+    The active instances of the effect switch to the new one on their next cycle.
      */
     public static void addOrReplaceEffect(NamespacedKey nameSpacedKey, ParticleEffect particle) {
         particleEffects.put(nameSpacedKey, particle);
@@ -78,13 +74,23 @@ public class ParticleEffects {
     else it does nothing.
      */
     public static void addEffect(NamespacedKey nameSpacedKey, ParticleEffect particle) {
-        if (!particleEffects.containsKey(nameSpacedKey)) {
-            particleEffects.put(nameSpacedKey, particle);
-        }
+        particleEffects.putIfAbsent(nameSpacedKey, particle);
+    }
+
+    /*
+    Removes the Particle Effect with the specified key.
+    The active instances of it keep the last definition until they are stopped.
+     */
+    public static void removeEffect(NamespacedKey nameSpacedKey) {
+        particleEffects.remove(nameSpacedKey);
     }
 
     public static UUID spawnEffectOnBlock(NamespacedKey nameSpacedKey, Block block) {
-        return spawnEffect(nameSpacedKey, (particleEffect, i) -> particleEffect.spawnOnBlock(block, i));
+        //The effect is emitted on the engine thread, so the scripts get a snapshot of the block instead of the block itself.
+        BlockState state = block.getState();
+        Location location = block.getLocation();
+        Location origin = location.clone().add(0.5, 0.5, 0.5);
+        return spawnEffect(nameSpacedKey, (particleEffect, i) -> particleEffect.spawnOnBlock(state, location, i), () -> origin, EffectOwner.block(block));
     }
 
     /**
@@ -95,49 +101,36 @@ public class ParticleEffects {
      */
     public static void stopEffect(UUID uuid) {
         if (uuid != null) {
-            BukkitTask task = currentEffects.get(uuid);
-            if (task != null) {
-                task.cancel();
-                currentEffects.remove(uuid);
-            }
+            ParticleEffectRegistry.stop(uuid);
         }
     }
 
     public static UUID spawnEffectOnLocation(NamespacedKey nameSpacedKey, Location location) {
-        return spawnEffect(nameSpacedKey, (particleEffect, i) -> particleEffect.spawnOnLocation(location, i));
+        Location origin = location.clone();
+        return spawnEffect(nameSpacedKey, (particleEffect, i) -> particleEffect.spawnOnLocation(location, i), () -> origin, EffectOwner.location(location));
     }
 
     public static UUID spawnEffectOnPlayer(NamespacedKey nameSpacedKey, EquipmentSlot slot, Player player) {
+        if (player == null) return null;
+        UUID uuid = player.getUniqueId();
+        //Only used by the engine thread, so it is reused each tick.
+        Location origin = new Location(null, 0, 0, 0);
+        //The position is read from the index that is built on the main thread each tick, so the engine thread doesn't access the player.
+        Supplier<Location> snapshot = () -> ParticleEngine.getPlayerIndex().getLocation(uuid, origin);
         return spawnEffect(nameSpacedKey, (particleEffect, i) -> {
-            if (player != null && player.isValid()) {
-                particleEffect.spawnOnPlayer(player, slot, i);
+            Location location = snapshot.get();
+            if (location != null) {
+                particleEffect.spawnOnPlayer(player, slot, location, i);
             }
-        });
+        }, snapshot, EffectOwner.player(player, slot));
     }
 
-    private static UUID spawnEffect(NamespacedKey namespacedKey, BiConsumer<ParticleEffect, Integer> consumer) {
+    private static UUID spawnEffect(NamespacedKey namespacedKey, ParticleEffectInstance.Emitter emitter, Supplier<Location> origin, EffectOwner owner) {
         ParticleEffect particleEffect = getEffect(namespacedKey);
         if (particleEffect != null) {
-            UUID id = UUID.randomUUID();
-            while (currentEffects.containsKey(id)) {
-                id = UUID.randomUUID();
-            }
-            currentEffects.put(id, Bukkit.getScheduler().runTaskTimerAsynchronously(WUPlugin.getInstance(), () -> {
-                particleEffect.prepare();
-                AtomicInteger i = new AtomicInteger();
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        consumer.accept(particleEffect, i.get());
-                        if (i.get() < particleEffect.getDuration()) {
-                            i.getAndIncrement();
-                        } else {
-                            cancel();
-                        }
-                    }
-                }.runTaskTimerAsynchronously(WUPlugin.getInstance(), 1, 1);
-            }, particleEffect.getCooldown(), particleEffect.getCooldown() + particleEffect.getDuration() + 1));
-            return id;
+            ParticleEffectInstance instance = ParticleEffectRegistry.register(uuid -> new ParticleEffectInstance(uuid, namespacedKey, particleEffect, emitter, origin, owner));
+            ParticleEngine.schedule(instance);
+            return instance.getUuid();
         }
         return null;
     }
@@ -179,13 +172,21 @@ public class ParticleEffects {
         if (file.exists()) {
             JsonNode node = JacksonUtil.getObjectMapper().readTree(file);
             node.fields().forEachRemaining(entry -> {
-                ParticleEffect particle = JacksonUtil.getObjectMapper().convertValue(entry.getValue(), ParticleEffect.class);
+                ParticleEffect particle = parse(file.getParent(), entry.getValue());
                 if (particle != null) {
-                    particle.setReferencePath(file.getParent());
                     addEffect(new NamespacedKey(namespace, entry.getKey()), particle);
                 }
             });
         }
+        ParticleReloader.watch(plugin, namespace, file.getParentFile());
+    }
+
+    static ParticleEffect parse(String referencePath, JsonNode value) {
+        ParticleEffect particleEffect = JacksonUtil.getObjectMapper().convertValue(value, ParticleEffect.class);
+        if (particleEffect != null) {
+            particleEffect.setReferencePath(referencePath);
+        }
+        return particleEffect;
     }
 
     public static class Serializer extends StdSerializer<ParticleEffects> {
@@ -0,0 +1,518 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Advances all the active {@link ParticleEffectInstance}s and spawns their particles.
+ * <p>
+ * The instances are kept in a timing wheel, that is advanced once per tick on a single engine thread, so the scripts of the particles don't run on the main thread.
+ * The particles that are emitted during a tick are collected and spawned together by a single main thread task in the next tick.
+ * That one task is the only scheduler entry of the engine, no matter how many effects are active.
+ * <p>
+ * Effects are only emitted if a player is within the view radius of their origin, which is looked up in a {@link PlayerSpatialIndex} that is rebuilt each tick.
+ * The particles of an effect are then only sent to those players, instead of being broadcast to the whole area.
+ * The amount of particles that are sent is limited by the {@link ParticleBudget}.
+ * Effects that have no viewers when they would start a new cycle are dormant. They don't start the cycle and only check for viewers again every second.
+ */
+public class ParticleEngine {
+
+    private static final int WHEEL_SIZE = 256;
+    private static final int DORMANT_DELAY = 20;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    @SuppressWarnings("unchecked")
+    private static final List<ParticleEffectInstance>[] wheel = new List[WHEEL_SIZE];
+    private static final Queue<ParticleEffectInstance> added = new ConcurrentLinkedQueue<>();
+    private static final Queue<SpawnCommand> external = new ConcurrentLinkedQueue<>();
+
+    private static final AtomicBoolean advancing = new AtomicBoolean(false);
+    private static final AtomicReference<SpawnBuffer> completed = new AtomicReference<>();
+
+    private static final LongAdder emitted = new LongAdder();
+    private static final LongAdder culled = new LongAdder();
+
+    private static volatile PlayerSpatialIndex playerIndex = PlayerSpatialIndex.empty();
+    private static volatile double viewRadius = 32;
+
+    private static ExecutorService executor;
+    private static volatile Thread engineThread;
+    private static BukkitTask task;
+
+    //Only accessed by the engine thread.
+    private static long currentTick = 0;
+    private static List<ParticleEffectInstance> spare = new ArrayList<>();
+    private static SpawnBuffer buffer = new SpawnBuffer();
+    private static SpawnBuffer spareBuffer = new SpawnBuffer();
+    private static int currentViewersFrom = -1;
+    private static int currentViewersTo = -1;
+    private static int currentCost = 0;
+    private static int currentDegraded = 0;
+    private static final List<ParticleEffectInstance> orderScratch = new ArrayList<>();
+    private static final List<PlayerSpatialIndex.Viewer> viewerScratch = new ArrayList<>();
+    private static ParticleEffectInstance currentInstance = null;
+
+    static {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+    }
+
+    private ParticleEngine() {
+    }
+
+    /**
+     * Starts the engine, if it isn't running yet.
+     *
+     * @param plugin the plugin that runs the main thread task
+     */
+    public static synchronized void start(Plugin plugin) {
+        if (task != null) return;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "WolfyUtilities Particles");
+            thread.setDaemon(true);
+            engineThread = thread;
+            return thread;
+        });
+        task = Bukkit.getScheduler().runTaskTimer(plugin, ParticleEngine::onTick, 1, 1);
+    }
+
+    /**
+     * Stops the engine. The active instances are kept and continue once the engine is started again.
+     */
+    public static synchronized void stop() {
+        if (task == null) return;
+        task.cancel();
+        task = null;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        completed.set(null);
+    }
+
+    public static boolean isRunning() {
+        return task != null;
+    }
+
+    public static double getViewRadius() {
+        return viewRadius;
+    }
+
+    /**
+     * @param viewRadius the maximum distance of a player to the origin of an effect, so it is emitted for the player
+     */
+    public static void setViewRadius(double viewRadius) {
+        ParticleEngine.viewRadius = viewRadius;
+    }
+
+    /**
+     * @return the amount of effect ticks that emitted particles
+     */
+    public static long getEmitted() {
+        return emitted.sum();
+    }
+
+    /**
+     * @return the amount of effect ticks that were skipped, because no player could see them
+     */
+    public static long getCulled() {
+        return culled.sum();
+    }
+
+    /**
+     * Adds the instance to the engine. It is advanced the first time after its initial delay.
+     *
+     * @param instance the instance to add
+     */
+    static void schedule(ParticleEffectInstance instance) {
+        added.add(instance);
+    }
+
+    /**
+     * Runs on the main thread once per tick.
+     * It spawns the particles of the last advance and starts the next one, unless the last one is still running.
+     */
+    private static void onTick() {
+        spawnCompleted();
+        SpawnCommand command;
+        while ((command = external.poll()) != null) {
+            command.spawn();
+        }
+        if (advancing.compareAndSet(false, true)) {
+            //The last advance might have completed after its particles were checked above.
+            spawnCompleted();
+            playerIndex = PlayerSpatialIndex.build();
+            executor.execute(() -> {
+                try {
+                    completed.set(advance());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    advancing.set(false);
+                }
+            });
+        }
+    }
+
+    private static void spawnCompleted() {
+        SpawnBuffer commands = completed.getAndSet(null);
+        if (commands != null) {
+            commands.spawn();
+        }
+    }
+
+    /**
+     * Advances the instances that are due in the current tick of the wheel.
+     * The particles are collected in one of two buffers, that are used alternately, so the buffer isn't cleared while the main thread still spawns it.
+     *
+     * @return the particles that were emitted
+     */
+    private static SpawnBuffer advance() {
+        buffer.clear();
+        ParticleEffectInstance instance;
+        while ((instance = added.poll()) != null) {
+            insert(instance, currentTick + instance.getInitialDelay());
+        }
+        int slot = (int) (currentTick & WHEEL_MASK);
+        List<ParticleEffectInstance> due = wheel[slot];
+        wheel[slot] = spare;
+        prioritizeStarved(due);
+        for (ParticleEffectInstance effectInstance : due) {
+            if (effectInstance.isCancelled()) continue;
+            if (effectInstance.getNextTick() > currentTick) {
+                //Scheduled for a later rotation of the wheel.
+                wheel[slot].add(effectInstance);
+                continue;
+            }
+            int delay;
+            int mark = buffer.size;
+            try {
+                if (!effectInstance.isEmitting() && !hasViewers(effectInstance)) {
+                    effectInstance.setDormant(true);
+                    insert(effectInstance, currentTick + DORMANT_DELAY);
+                    continue;
+                }
+                effectInstance.setDormant(false);
+                boolean visible = true;
+                World world = null;
+                if (effectInstance.isEmitting()) {
+                    currentViewersFrom = buffer.viewerCount;
+                    world = collectViewers(effectInstance);
+                    currentViewersTo = buffer.viewerCount;
+                    visible = currentViewersTo > currentViewersFrom;
+                    if (visible) {
+                        emitted.increment();
+                    } else {
+                        culled.increment();
+                    }
+                }
+                currentInstance = effectInstance;
+                currentCost = 0;
+                currentDegraded = 0;
+                delay = effectInstance.advance(visible);
+                if (world != null && currentCost > 0) {
+                    if (ParticleBudget.tryConsume(world, currentCost, currentDegraded)) {
+                        effectInstance.setStarved(false);
+                    } else {
+                        //Over budget, so the particles of the effect are dropped for this tick.
+                        buffer.rollback(mark, currentViewersFrom);
+                        effectInstance.setStarved(true);
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                delay = 1;
+            } finally {
+                currentViewersFrom = -1;
+                currentViewersTo = -1;
+                currentInstance = null;
+            }
+            insert(effectInstance, currentTick + delay);
+        }
+        ParticleBudget.endTick();
+        due.clear();
+        spare = due;
+        currentTick++;
+        SpawnBuffer commands = buffer;
+        buffer = spareBuffer;
+        spareBuffer = commands;
+        return commands;
+    }
+
+    /**
+     * Moves the instances, whose particles were dropped the last time because of the budget, to the front of the list, keeping the order otherwise.
+     * Those are advanced first and are no longer starved once their particles fit into the budget, so the budget rotates between the instances.
+     */
+    private static void prioritizeStarved(List<ParticleEffectInstance> due) {
+        int starved = 0;
+        for (ParticleEffectInstance instance : due) {
+            if (instance.isStarved()) {
+                starved++;
+            }
+        }
+        if (starved == 0 || starved == due.size()) return;
+        for (ParticleEffectInstance instance : due) {
+            if (instance.isStarved()) {
+                orderScratch.add(instance);
+            }
+        }
+        for (ParticleEffectInstance instance : due) {
+            if (!instance.isStarved()) {
+                orderScratch.add(instance);
+            }
+        }
+        for (int i = 0; i < orderScratch.size(); i++) {
+            due.set(i, orderScratch.get(i));
+        }
+        orderScratch.clear();
+    }
+
+    /**
+     * Runs the task on the current thread as if it was the engine thread, so the particles it spawns are collected into the buffer like during an advance.
+     * The collected particles are discarded afterwards. This is used to measure the spawning of particles without a server.
+     *
+     * @param task the task that spawns the particles
+     * @throws IllegalStateException if the engine is running
+     */
+    static synchronized void collect(Runnable task) {
+        if (isRunning()) throw new IllegalStateException("The engine is running!");
+        Thread previous = engineThread;
+        engineThread = Thread.currentThread();
+        try {
+            task.run();
+        } finally {
+            engineThread = previous;
+            buffer.clear();
+        }
+    }
+
+    /**
+     * @return the index of the players of the current tick, which is built on the main thread, so the engine thread can read their positions
+     */
+    static PlayerSpatialIndex getPlayerIndex() {
+        return playerIndex;
+    }
+
+    /**
+     * @return the instance that is currently advanced or null if it isn't called from the engine thread
+     */
+    @Nullable
+    static ParticleEffectInstance getCurrentInstance() {
+        return Thread.currentThread() == engineThread ? currentInstance : null;
+    }
+
+    private static boolean hasViewers(ParticleEffectInstance instance) {
+        Location origin = instance.getOrigin();
+        return origin != null && origin.getWorld() != null && playerIndex.hasViewers(origin.getWorld(), origin.getX(), origin.getY(), origin.getZ(), viewRadius);
+    }
+
+    /**
+     * Adds the viewers of the instance and their level of detail to the buffer.
+     *
+     * @return the world of the instance or null if its origin is unknown
+     */
+    @Nullable
+    private static World collectViewers(ParticleEffectInstance instance) {
+        Location origin = instance.getOrigin();
+        if (origin == null || origin.getWorld() == null) return null;
+        double x = origin.getX();
+        double y = origin.getY();
+        double z = origin.getZ();
+        playerIndex.collectViewers(origin.getWorld(), x, y, z, viewRadius, viewerScratch);
+        for (PlayerSpatialIndex.Viewer viewer : viewerScratch) {
+            double factor = ParticleBudget.getFactor(viewer.distanceSquared(x, y, z));
+            if (factor > 0) {
+                buffer.addViewer(viewer, factor);
+            }
+        }
+        viewerScratch.clear();
+        return origin.getWorld();
+    }
+
+    private static void insert(ParticleEffectInstance instance, long tick) {
+        instance.setNextTick(tick);
+        wheel[(int) (tick & WHEEL_MASK)].add(instance);
+    }
+
+    /**
+     * Queues the particle to be spawned by the main thread task.
+     * Particles emitted by the engine thread are spawned together with the rest of the tick and only sent to the viewers of their effect.
+     * Others are broadcast in the next tick.
+     */
+    static void spawn(World world, org.bukkit.Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data) {
+        if (Thread.currentThread() == engineThread) {
+            buffer.add(world, particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data, currentViewersFrom, currentViewersTo);
+            for (int i = currentViewersFrom; i >= 0 && i < currentViewersTo; i++) {
+                int scaled = ParticleBudget.scale(count, buffer.factors[i]);
+                currentCost += scaled;
+                currentDegraded += count - scaled;
+            }
+        } else {
+            external.add(new SpawnCommand(world, particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data));
+        }
+    }
+
+    private static void spawn(World world, org.bukkit.Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data, Player player) {
+        if (player.isOnline() && player.getWorld().equals(world)) {
+            if (data == null) {
+                player.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra);
+            } else {
+                player.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data);
+            }
+        }
+    }
+
+    private static void spawn(World world, org.bukkit.Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data) {
+        if (data == null) {
+            world.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra);
+        } else {
+            world.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data);
+        }
+    }
+
+    /**
+     * The particles emitted by the engine thread during a tick.
+     * The values are stored in parallel arrays, that grow as needed and are reused, so emitting a particle doesn't allocate anything once the buffer is large enough.
+     * The viewers of all effects are stored in a single array and each particle refers to the range of its effect.
+     */
+    private static class SpawnBuffer {
+
+        private World[] worlds = new World[64];
+        private org.bukkit.Particle[] particles = new org.bukkit.Particle[64];
+        private Object[] data = new Object[64];
+        //x, y, z, offsetX, offsetY, offsetZ and extra of each particle.
+        private double[] values = new double[64 * 7];
+        private int[] counts = new int[64];
+        //The range of the viewers of each particle or -1 if it is sent to all players.
+        private int[] viewersFrom = new int[64];
+        private int[] viewersTo = new int[64];
+        private PlayerSpatialIndex.Viewer[] viewers = new PlayerSpatialIndex.Viewer[64];
+        //The level of detail of each viewer.
+        private double[] factors = new double[64];
+        private int viewerCount = 0;
+        private int size = 0;
+
+        private void addViewer(PlayerSpatialIndex.Viewer viewer, double factor) {
+            if (viewerCount == viewers.length) {
+                viewers = Arrays.copyOf(viewers, viewerCount * 2);
+                factors = Arrays.copyOf(factors, viewerCount * 2);
+            }
+            viewers[viewerCount] = viewer;
+            factors[viewerCount] = factor;
+            viewerCount++;
+        }
+
+        /**
+         * Removes the particles and viewers that were added after the marks.
+         */
+        private void rollback(int size, int viewerCount) {
+            Arrays.fill(worlds, size, this.size, null);
+            Arrays.fill(particles, size, this.size, null);
+            Arrays.fill(data, size, this.size, null);
+            Arrays.fill(viewers, viewerCount, this.viewerCount, null);
+            this.size = size;
+            this.viewerCount = viewerCount;
+        }
+
+        private void add(World world, org.bukkit.Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data, int viewersFrom, int viewersTo) {
+            if (size == counts.length) {
+                grow();
+            }
+            worlds[size] = world;
+            particles[size] = particle;
+            this.data[size] = data;
+            int index = size * 7;
+            values[index] = x;
+            values[index + 1] = y;
+            values[index + 2] = z;
+            values[index + 3] = offsetX;
+            values[index + 4] = offsetY;
+            values[index + 5] = offsetZ;
+            values[index + 6] = extra;
+            counts[size] = count;
+            this.viewersFrom[size] = viewersFrom;
+            this.viewersTo[size] = viewersTo;
+            size++;
+        }
+
+        private void grow() {
+            int capacity = counts.length * 2;
+            worlds = Arrays.copyOf(worlds, capacity);
+            particles = Arrays.copyOf(particles, capacity);
+            data = Arrays.copyOf(data, capacity);
+            values = Arrays.copyOf(values, capacity * 7);
+            counts = Arrays.copyOf(counts, capacity);
+            viewersFrom = Arrays.copyOf(viewersFrom, capacity);
+            viewersTo = Arrays.copyOf(viewersTo, capacity);
+        }
+
+        private void clear() {
+            rollback(0, 0);
+        }
+
+        private void spawn() {
+            for (int i = 0; i < size; i++) {
+                int index = i * 7;
+                if (viewersFrom[i] < 0) {
+                    ParticleEngine.spawn(worlds[i], particles[i], values[index], values[index + 1], values[index + 2], counts[i], values[index + 3], values[index + 4], values[index + 5], values[index + 6], data[i]);
+                    continue;
+                }
+                for (int j = viewersFrom[i]; j < viewersTo[i]; j++) {
+                    ParticleEngine.spawn(worlds[i], particles[i], values[index], values[index + 1], values[index + 2], ParticleBudget.scale(counts[i], factors[j]), values[index + 3], values[index + 4], values[index + 5], values[index + 6], data[i], viewers[j].getPlayer());
+                }
+            }
+        }
+    }
+
+    /**
+     * A particle spawned from another thread, that is sent to all players in the area.
+     */
+    private static class SpawnCommand {
+
+        private final World world;
+        private final org.bukkit.Particle particle;
+        private final double x, y, z;
+        private final int count;
+        private final double offsetX, offsetY, offsetZ;
+        private final double extra;
+        private final Object data;
+
+        private SpawnCommand(World world, org.bukkit.Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra, @Nullable Object data) {
+            this.world = world;
+            this.particle = particle;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.count = count;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+            this.extra = extra;
+            this.data = data;
+        }
+
+        private void spawn() {
+            ParticleEngine.spawn(world, particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data);
+        }
+    }
+}
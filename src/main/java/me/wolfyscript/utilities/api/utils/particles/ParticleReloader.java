@@ -0,0 +1,307 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import me.wolfyscript.utilities.api.utils.json.jackson.JacksonUtil;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the particles.json and particle_effects.json files, that were loaded by {@link Particles} and {@link ParticleEffects}, and reloads them when they are changed.
+ * <p>
+ * The files are read and parsed on the watcher thread. Only the entries that changed since the last load are parsed again.
+ * An effect is also parsed again if one of its particles refers to a changed particle, because the values of that particle are copied into it.
+ * The changed effects replace the old ones in {@link ParticleEffects}. The active instances switch to the new definition at the start of their next cycle and keep their UUID.
+ * Removed effects are no longer available, but their active instances keep the last definition until they are stopped.
+ */
+public class ParticleReloader {
+
+    private static final String PARTICLES_FILE = "particles.json";
+    private static final String EFFECTS_FILE = "particle_effects.json";
+    //Editors often write a file in multiple steps, so the events are collected for a short time before the files are read.
+    private static final long DEBOUNCE = 100;
+
+    private static final Map<Path, Directory> directories = new ConcurrentHashMap<>();
+
+    private static WatchService watchService;
+    private static Thread watcherThread;
+
+    private ParticleReloader() {
+    }
+
+    /**
+     * Starts watching the directories, that were and will be loaded.
+     *
+     * @param plugin the plugin that owns the watcher
+     */
+    public static synchronized void start(Plugin plugin) {
+        if (watcherThread != null) return;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to watch the particle files: " + e.getMessage());
+            return;
+        }
+        for (Directory directory : directories.values()) {
+            directory.register(watchService);
+        }
+        watcherThread = new Thread(ParticleReloader::run, "WolfyUtilities Particle Reloader");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching the directories. The loaded particles and effects are kept.
+     */
+    public static synchronized void stop() {
+        if (watcherThread == null) return;
+        watcherThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try {
+            watcherThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watcherThread = null;
+        watchService = null;
+    }
+
+    /**
+     * Adds the directory of the particle files to the watched directories and remembers the current content of the files.
+     *
+     * @param plugin    the plugin that loaded the files
+     * @param namespace the namespace of the particles and effects
+     * @param directory the directory that contains the files
+     */
+    static synchronized void watch(Plugin plugin, String namespace, File directory) {
+        Path path = directory.toPath().toAbsolutePath().normalize();
+        if (directories.containsKey(path) || !directory.isDirectory()) return;
+        Directory watched = new Directory(plugin, namespace, directory, path);
+        try {
+            watched.particles = read(new File(directory, PARTICLES_FILE));
+            watched.effects = read(new File(directory, EFFECTS_FILE));
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to read the particle files of " + directory + ": " + e.getMessage());
+            return;
+        }
+        directories.put(path, watched);
+        if (watchService != null) {
+            watched.register(watchService);
+        }
+    }
+
+    private static void run() {
+        WatchService service = watchService;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Map<Directory, boolean[]> pending = new LinkedHashMap<>();
+                WatchKey key = service.take();
+                do {
+                    collect(key, pending);
+                    key = service.poll(DEBOUNCE, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                if (!pending.isEmpty()) {
+                    reload(pending);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //The reloader was stopped.
+        }
+    }
+
+    private static void collect(WatchKey key, Map<Directory, boolean[]> pending) {
+        Directory directory = directories.get((Path) key.watchable());
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+            String fileName = event.context().toString();
+            if (fileName.equals(PARTICLES_FILE)) {
+                pending.computeIfAbsent(directory, dir -> new boolean[2])[0] = true;
+            } else if (fileName.equals(EFFECTS_FILE)) {
+                pending.computeIfAbsent(directory, dir -> new boolean[2])[1] = true;
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Reloads the changed files. Called by the watcher thread.
+     *
+     * @param pending the changed directories with a flag for the particles and the effects file
+     */
+    private static void reload(Map<Directory, boolean[]> pending) {
+        Set<NamespacedKey> changedParticles = new HashSet<>();
+        for (Map.Entry<Directory, boolean[]> entry : pending.entrySet()) {
+            if (entry.getValue()[0]) {
+                entry.getKey().reloadParticles(changedParticles);
+            }
+        }
+        //Particles copy the values of their super particle, so the particles that refer to a changed one are parsed again too.
+        Set<NamespacedKey> dependents = changedParticles;
+        while (!dependents.isEmpty()) {
+            Set<NamespacedKey> next = new HashSet<>();
+            for (Directory directory : directories.values()) {
+                directory.reparseDependentParticles(dependents, changedParticles, next);
+            }
+            changedParticles.addAll(next);
+            dependents = next;
+        }
+        for (Directory directory : directories.values()) {
+            boolean[] files = pending.get(directory);
+            directory.reloadEffects(files != null && files[1], changedParticles);
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> nodes = new LinkedHashMap<>();
+        if (file.exists()) {
+            JacksonUtil.getObjectMapper().readTree(file).fields().forEachRemaining(entry -> nodes.put(entry.getKey(), entry.getValue()));
+        }
+        return nodes;
+    }
+
+    /**
+     * @param node the node of a particle
+     * @return the key of the particle it refers to or null if it doesn't refer to one
+     */
+    private static NamespacedKey getReference(JsonNode node) {
+        if (!node.has("particle")) return null;
+        String particle = node.get("particle").asText();
+        return particle.contains(":") ? NamespacedKey.getByString(particle) : new NamespacedKey("wolfyutilities", particle);
+    }
+
+    private static boolean refersTo(JsonNode effectNode, Set<NamespacedKey> particles) {
+        if (particles.isEmpty() || !effectNode.has("particles")) return false;
+        for (JsonNode particle : effectNode.get("particles")) {
+            if (particles.contains(getReference(particle))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Directory {
+
+        private final Plugin plugin;
+        private final String namespace;
+        private final File file;
+        private final Path path;
+
+        //Only accessed by the watcher thread, after the directory was added.
+        private Map<String, JsonNode> particles;
+        private Map<String, JsonNode> effects;
+
+        private Directory(Plugin plugin, String namespace, File file, Path path) {
+            this.plugin = plugin;
+            this.namespace = namespace;
+            this.file = file;
+            this.path = path;
+        }
+
+        private void register(WatchService service) {
+            try {
+                path.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to watch the particle files of " + file + ": " + e.getMessage());
+            }
+        }
+
+        private void reloadParticles(Set<NamespacedKey> changed) {
+            Map<String, JsonNode> nodes;
+            try {
+                nodes = read(new File(file, PARTICLES_FILE));
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to reload " + new File(file, PARTICLES_FILE) + ": " + e.getMessage());
+                return;
+            }
+            int updated = 0;
+            int removed = 0;
+            for (Map.Entry<String, JsonNode> entry : nodes.entrySet()) {
+                if (!entry.getValue().equals(particles.get(entry.getKey())) && update(entry.getKey(), entry.getValue())) {
+                    changed.add(new NamespacedKey(namespace, entry.getKey()));
+                    updated++;
+                }
+            }
+            for (String key : particles.keySet()) {
+                if (!nodes.containsKey(key)) {
+                    NamespacedKey namespacedKey = new NamespacedKey(namespace, key);
+                    Particles.removeParticle(namespacedKey);
+                    changed.add(namespacedKey);
+                    removed++;
+                }
+            }
+            particles = nodes;
+            if (updated > 0 || removed > 0) {
+                plugin.getLogger().info("Reloaded particles of " + namespace + ": " + updated + " changed, " + removed + " removed");
+            }
+        }
+
+        private void reparseDependentParticles(Set<NamespacedKey> dependents, Set<NamespacedKey> changed, Set<NamespacedKey> next) {
+            for (Map.Entry<String, JsonNode> entry : particles.entrySet()) {
+                NamespacedKey namespacedKey = new NamespacedKey(namespace, entry.getKey());
+                if (!changed.contains(namespacedKey) && !next.contains(namespacedKey) && dependents.contains(getReference(entry.getValue())) && update(entry.getKey(), entry.getValue())) {
+                    next.add(namespacedKey);
+                }
+            }
+        }
+
+        private boolean update(String key, JsonNode node) {
+            try {
+                Particle particle = Particles.parse(namespace, key, node);
+                if (particle != null) {
+                    Particles.addOrReplaceParticle(particle.getNamespacedKey(), particle);
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Failed to reload the particle " + namespace + ":" + key + ": " + e.getMessage());
+            }
+            return false;
+        }
+
+        private void reloadEffects(boolean fileChanged, Set<NamespacedKey> changedParticles) {
+            Map<String, JsonNode> nodes = effects;
+            if (fileChanged) {
+                try {
+                    nodes = read(new File(file, EFFECTS_FILE));
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Failed to reload " + new File(file, EFFECTS_FILE) + ": " + e.getMessage());
+                }
+            }
+            int updated = 0;
+            int removed = 0;
+            for (Map.Entry<String, JsonNode> entry : nodes.entrySet()) {
+                if (entry.getValue().equals(effects.get(entry.getKey())) && !refersTo(entry.getValue(), changedParticles)) continue;
+                try {
+                    ParticleEffect particleEffect = ParticleEffects.parse(file.getPath(), entry.getValue());
+                    if (particleEffect != null) {
+                        ParticleEffects.addOrReplaceEffect(new NamespacedKey(namespace, entry.getKey()), particleEffect);
+                        updated++;
+                    }
+                } catch (RuntimeException e) {
+                    plugin.getLogger().warning("Failed to reload the particle effect " + namespace + ":" + entry.getKey() + ": " + e.getMessage());
+                }
+            }
+            if (nodes != effects) {
+                for (String key : effects.keySet()) {
+                    if (!nodes.containsKey(key)) {
+                        ParticleEffects.removeEffect(new NamespacedKey(namespace, key));
+                        removed++;
+                    }
+                }
+                effects = nodes;
+            }
+            if (updated > 0 || removed > 0) {
+                plugin.getLogger().info("Reloaded particle effects of " + namespace + ": " + updated + " changed, " + removed + " removed");
+            }
+        }
+    }
+}
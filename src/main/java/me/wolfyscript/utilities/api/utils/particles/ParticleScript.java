@@ -0,0 +1,170 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import me.wolfyscript.utilities.api.utils.scripting.ScriptUtil;
+import me.wolfyscript.utilities.main.WUPlugin;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+
+import javax.script.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The compiled scripts of a {@link Particle}.
+ * <p>
+ * The sources, including the files referenced by "file=", are read once. They are compiled once per thread by the engine of that thread (see {@link ScriptUtil#getThreadEngine()}).
+ * Each {@link ParticleEffectInstance} evaluates them into its own {@link Bindings}, so the instances don't share their global variables.
+ * Calls from outside of the {@link ParticleEngine} share the Bindings of their thread.
+ */
+class ParticleScript {
+
+    private final List<String> scripts;
+    private final String referencePath;
+    private final String[] sources;
+    private final String particleName;
+
+    private final ThreadLocal<CompiledScript[]> compiled = ThreadLocal.withInitial(this::compile);
+    private final ThreadLocal<Bindings> threadBindings = ThreadLocal.withInitial(this::createBindings);
+
+    private final AtomicInteger overruns = new AtomicInteger();
+    private volatile boolean disabled = false;
+
+    private ParticleScript(List<String> scripts, @Nullable String referencePath, String[] sources, String particleName) {
+        this.scripts = scripts;
+        this.referencePath = referencePath;
+        this.sources = sources;
+        this.particleName = particleName;
+    }
+
+    /**
+     * Reads the sources of the scripts.
+     *
+     * @param scripts       the scripts of the Particle
+     * @param referencePath the directory the "file=" scripts are relative to
+     * @param particleName  the name of the particle, which is used in error messages
+     * @return the ParticleScript or null if there are no scripts
+     */
+    @Nullable
+    static ParticleScript create(List<String> scripts, @Nullable String referencePath, String particleName) {
+        if (scripts == null || scripts.isEmpty() || ScriptUtil.getThreadEngine() == null) return null;
+        List<String> sources = new ArrayList<>();
+        for (String script : scripts) {
+            if (script.startsWith("file=")) {
+                try {
+                    sources.add(new String(Files.readAllBytes(new File(referencePath + File.separator + script.substring("file=".length())).toPath()), StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    WUPlugin.getWolfyUtilities().sendDebugMessage(e.getMessage());
+                }
+            } else {
+                sources.add(script);
+            }
+        }
+        return new ParticleScript(new ArrayList<>(scripts), referencePath, sources.toArray(new String[0]), particleName);
+    }
+
+    /**
+     * @return true if the ParticleScript was created from the same scripts and reference path
+     */
+    boolean matches(List<String> scripts, @Nullable String referencePath) {
+        return this.scripts.equals(scripts) && Objects.equals(this.referencePath, referencePath);
+    }
+
+    /**
+     * @return the hash of the sources of the scripts
+     */
+    int getSourceHash() {
+        int hash = 1;
+        for (String source : sources) {
+            hash = 31 * hash + source.hashCode();
+        }
+        return hash;
+    }
+
+    boolean isDisabled() {
+        return disabled;
+    }
+
+    private CompiledScript[] compile() {
+        ScriptEngine engine = ScriptUtil.getThreadEngine();
+        CompiledScript[] compiledScripts = new CompiledScript[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            try {
+                compiledScripts[i] = ((Compilable) engine).compile(sources[i]);
+            } catch (ScriptException e) {
+                WUPlugin.getWolfyUtilities().sendDebugMessage(e.getMessage());
+            }
+        }
+        return compiledScripts;
+    }
+
+    /**
+     * Creates new Bindings of the engine of the current thread and evaluates the scripts into them.
+     *
+     * @return the new Bindings
+     */
+    Bindings createBindings() {
+        Bindings bindings = ScriptUtil.getThreadEngine().createBindings();
+        for (CompiledScript compiledScript : compiled.get()) {
+            if (compiledScript != null) {
+                try {
+                    compiledScript.eval(bindings);
+                } catch (ScriptException e) {
+                    WUPlugin.getWolfyUtilities().sendDebugMessage(e.getMessage());
+                }
+            }
+        }
+        return bindings;
+    }
+
+    /**
+     * Invokes the function in the Bindings, without the time budget. The exceptions are thrown to the caller.
+     *
+     * @param bindings the Bindings created by {@link #createBindings()}
+     * @param function the name of the function
+     * @param args     the arguments of the function
+     */
+    void invokeDirect(Bindings bindings, String function, Object... args) throws ScriptException, NoSuchMethodException {
+        ScriptEngine engine = ScriptUtil.getThreadEngine();
+        engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        ((Invocable) engine).invokeFunction(function, args);
+    }
+
+    /**
+     * Invokes the function of the scripts.
+     * If the instance is null, the Bindings of the current thread are used.
+     * If too many invocations in a row take longer than the time budget (see {@link ParticleScripts#getTimeBudget()}), the scripts are disabled.
+     *
+     * @param instance the instance that emits the particle or null if it isn't emitted by the engine
+     * @param function the name of the function
+     * @param args     the arguments of the function
+     */
+    void invoke(@Nullable ParticleEffectInstance instance, String function, Object... args) {
+        if (disabled) return;
+        ScriptEngine engine = ScriptUtil.getThreadEngine();
+        Bindings bindings = instance != null ? instance.getBindings(this) : threadBindings.get();
+        long start = System.nanoTime();
+        try {
+            engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+            ((Invocable) engine).invokeFunction(function, args);
+        } catch (NoSuchMethodException ignored) {
+            //The scripts don't need to implement all the functions.
+        } catch (ScriptException | RuntimeException e) {
+            WUPlugin.getWolfyUtilities().sendDebugMessage(e.getMessage());
+        }
+        long time = System.nanoTime() - start;
+        ParticleScripts.record(instance != null ? instance.getEffectKey() : null, time);
+        if (time <= ParticleScripts.getTimeBudget()) {
+            //Only consecutive overruns count, so an occasional slow invocation (e.g. a GC pause) doesn't disable the scripts.
+            overruns.set(0);
+        } else if (overruns.incrementAndGet() >= ParticleScripts.getMaxOverruns()) {
+            disabled = true;
+            Bukkit.getLogger().warning("[WU] Disabled the scripts of the particle " + particleName + ", because they exceeded the time budget of " + ParticleScripts.getTimeBudget() / 1000000.0 + "ms " + overruns.get() + " times in a row!");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import me.wolfyscript.utilities.api.utils.NamespacedKey;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The settings and statistics of the scripts of the particles.
+ */
+public class ParticleScripts {
+
+    private static volatile long timeBudget = TimeUnit.MILLISECONDS.toNanos(5);
+    private static volatile int maxOverruns = 3;
+
+    private static final Map<NamespacedKey, Stats> stats = new ConcurrentHashMap<>();
+    private static final Stats total = new Stats();
+
+    private ParticleScripts() {
+    }
+
+    /**
+     * @return the time in nanoseconds a single invocation of a script may take
+     */
+    public static long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public static void setTimeBudget(long time, TimeUnit unit) {
+        timeBudget = unit.toNanos(time);
+    }
+
+    /**
+     * @return how many times in a row the scripts of a particle may exceed the time budget, before they are disabled
+     */
+    public static int getMaxOverruns() {
+        return maxOverruns;
+    }
+
+    public static void setMaxOverruns(int maxOverruns) {
+        ParticleScripts.maxOverruns = maxOverruns;
+    }
+
+    static void record(@Nullable NamespacedKey effectKey, long nanos) {
+        total.record(nanos);
+        if (effectKey != null) {
+            stats.computeIfAbsent(effectKey, key -> new Stats()).record(nanos);
+        }
+    }
+
+    /**
+     * @return the script statistics of each ParticleEffect
+     */
+    public static Map<NamespacedKey, Stats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * @return the statistics of all the script invocations, including the ones that aren't from an effect
+     */
+    public static Stats getTotal() {
+        return total;
+    }
+
+    public static void resetStats() {
+        stats.clear();
+        total.reset();
+    }
+
+    public static class Stats {
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private void record(long time) {
+            invocations.increment();
+            nanos.add(time);
+        }
+
+        private void reset() {
+            invocations.reset();
+            nanos.reset();
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        /**
+         * @return the total time of the invocations in nanoseconds
+         */
+        public long getTime() {
+            return nanos.sum();
+        }
+
+        /**
+         * @return the average time of an invocation in nanoseconds
+         */
+        public double getAverageTime() {
+            long count = invocations.sum();
+            return count > 0 ? (double) nanos.sum() / count : 0;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import org.bukkit.util.Vector;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A geometric shape, that a {@link Particle} is spawned in, without the need of a script.
+ * <p>
+ * The points of the shape are computed once and cached in a table of float offsets, which is shared by all the shapes with the same parameters.
+ * The particle is spawned at each point of the table, so spawning a shape is only a loop over the table.
+ * <p>
+ * If the speed is greater than 0, only that amount of points is spawned each tick and the next tick continues at the following point, so the shape is drawn over time.
+ * Otherwise all the points are spawned each tick.
+ */
+public class ParticleShape {
+
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+    private static final Map<ParticleShape, float[]> tables = new ConcurrentHashMap<>();
+
+    private final Type type;
+    private final double radius;
+    private final int points;
+    private final double height;
+    private final double turns;
+    private final Vector rotation;
+    private final int speed;
+
+    private volatile float[] offsets;
+
+    public ParticleShape(Type type, double radius, int points) {
+        this(type, radius, points, 0, 1, new Vector(0, 0, 0), 0);
+    }
+
+    /**
+     * @param type     the type of the shape
+     * @param radius   the radius of the shape or the length of the line
+     * @param points   the amount of points of the shape
+     * @param height   the height of the helix
+     * @param turns    the amount of turns of the helix
+     * @param rotation the rotation around the x, y and z axis in degrees, which is applied in that order
+     * @param speed    the amount of points spawned per tick or 0 to spawn all of them each tick
+     */
+    public ParticleShape(Type type, double radius, int points, double height, double turns, Vector rotation, int speed) {
+        this.type = Objects.requireNonNull(type, "The type of the shape is required!");
+        this.radius = radius;
+        this.points = Math.max(1, points);
+        this.height = height;
+        this.turns = turns;
+        this.rotation = rotation != null ? rotation.clone() : new Vector(0, 0, 0);
+        this.speed = Math.max(0, speed);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getTurns() {
+        return turns;
+    }
+
+    public Vector getRotation() {
+        return rotation.clone();
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return the cached offsets of the points, which contain the x, y and z offset of each point in a row. The array must not be modified!
+     */
+    float[] getOffsets() {
+        float[] current = offsets;
+        if (current == null) {
+            current = tables.computeIfAbsent(this, ParticleShape::compute);
+            offsets = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return the amount of points that are spawned per tick
+     */
+    int getPointsPerTick() {
+        return speed > 0 ? Math.min(speed, points) : points;
+    }
+
+    /**
+     * @param tick the tick of the effect
+     * @return the index of the first point that is spawned in the tick
+     */
+    int getFirstPoint(int tick) {
+        return speed > 0 ? (int) Math.floorMod((long) tick * speed, (long) points) : 0;
+    }
+
+    private float[] compute() {
+        float[] table = new float[points * 3];
+        double[] point = new double[3];
+        double radX = Math.toRadians(rotation.getX());
+        double radY = Math.toRadians(rotation.getY());
+        double radZ = Math.toRadians(rotation.getZ());
+        for (int i = 0; i < points; i++) {
+            computePoint(i, point);
+            rotate(point, radX, radY, radZ);
+            table[i * 3] = (float) point[0];
+            table[i * 3 + 1] = (float) point[1];
+            table[i * 3 + 2] = (float) point[2];
+        }
+        return table;
+    }
+
+    private void computePoint(int i, double[] point) {
+        double angle;
+        switch (type) {
+            case RING:
+                angle = 2 * Math.PI * i / points;
+                set(point, radius * Math.cos(angle), 0, radius * Math.sin(angle));
+                break;
+            case CIRCLE:
+                //The points fill the circle evenly by following the golden angle spiral.
+                double distance = radius * Math.sqrt((i + 0.5) / points);
+                angle = i * GOLDEN_ANGLE;
+                set(point, distance * Math.cos(angle), 0, distance * Math.sin(angle));
+                break;
+            case HELIX:
+                double progress = points > 1 ? (double) i / (points - 1) : 0;
+                angle = 2 * Math.PI * turns * progress;
+                set(point, radius * Math.cos(angle), height * progress, radius * Math.sin(angle));
+                break;
+            case SPHERE:
+                //The points cover the sphere evenly by following the golden angle spiral from the top to the bottom.
+                double y = 1 - 2 * (i + 0.5) / points;
+                double ring = Math.sqrt(1 - y * y);
+                angle = i * GOLDEN_ANGLE;
+                set(point, radius * ring * Math.cos(angle), radius * y, radius * ring * Math.sin(angle));
+                break;
+            case LINE:
+            default:
+                set(point, points > 1 ? radius * i / (points - 1) : 0, 0, 0);
+        }
+    }
+
+    private static void set(double[] point, double x, double y, double z) {
+        point[0] = x;
+        point[1] = y;
+        point[2] = z;
+    }
+
+    private static void rotate(double[] point, double radX, double radY, double radZ) {
+        double x = point[0];
+        double y = point[1];
+        double z = point[2];
+        if (radX != 0) {
+            double cos = Math.cos(radX);
+            double sin = Math.sin(radX);
+            double rotatedY = y * cos - z * sin;
+            z = y * sin + z * cos;
+            y = rotatedY;
+        }
+        if (radY != 0) {
+            double cos = Math.cos(radY);
+            double sin = Math.sin(radY);
+            double rotatedX = x * cos + z * sin;
+            z = -x * sin + z * cos;
+            x = rotatedX;
+        }
+        if (radZ != 0) {
+            double cos = Math.cos(radZ);
+            double sin = Math.sin(radZ);
+            double rotatedX = x * cos - y * sin;
+            y = x * sin + y * cos;
+            x = rotatedX;
+        }
+        set(point, x, y, z);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ParticleShape)) return false;
+        ParticleShape that = (ParticleShape) o;
+        return Double.compare(that.radius, radius) == 0 && points == that.points && Double.compare(that.height, height) == 0 && Double.compare(that.turns, turns) == 0 && speed == that.speed && type == that.type
+                && Double.compare(that.rotation.getX(), rotation.getX()) == 0 && Double.compare(that.rotation.getY(), rotation.getY()) == 0 && Double.compare(that.rotation.getZ(), rotation.getZ()) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        //The rotation is hashed by its components, because Vector#equals uses an epsilon.
+        return Objects.hash(type, radius, points, height, turns, rotation.getX(), rotation.getY(), rotation.getZ(), speed);
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleShape{" +
+                "type=" + type +
+                ", radius=" + radius +
+                ", points=" + points +
+                ", height=" + height +
+                ", turns=" + turns +
+                ", rotation=" + rotation +
+                ", speed=" + speed +
+                '}';
+    }
+
+    public enum Type {
+        /**
+         * Points that fill a horizontal circle.
+         */
+        CIRCLE,
+        /**
+         * Points on the outline of a horizontal circle.
+         */
+        RING,
+        /**
+         * Points on a helix, that goes up from the center by the height.
+         */
+        HELIX,
+        /**
+         * Points on the surface of a sphere around the center.
+         */
+        SPHERE,
+        /**
+         * Points on a line from the center along the x axis, whose length is the radius.
+         */
+        LINE;
+
+        public static Type of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+}
@@ -21,6 +21,7 @@ Contains the Particle classes.
 @JsonSerialize(using = Particles.Serializer.class)
 public class Particles {
 
+    //Synchronized, because the particles are reloaded by the ParticleReloader thread.
     private static final LinkedHashMap<NamespacedKey, Particle> particles = new LinkedHashMap<>();
 
     private final String namespace;
@@ -46,21 +47,36 @@ public class Particles {
     Changes to the returned map won't be apllied to the real one.
      */
     public static LinkedHashMap<NamespacedKey, Particle> getParticles() {
-        return new LinkedHashMap<>(particles);
+        synchronized (particles) {
+            return new LinkedHashMap<>(particles);
+        }
     }
 
     /*
     Returns the particle with the specified name, when it exists in the map.
      */
     public static Particle getParticle(NamespacedKey namespacedKey) {
-        return particles.get(namespacedKey);
+        synchronized (particles) {
+            return particles.get(namespacedKey);
+        }
     }
 
     /*
     Puts the given values into the map and replaces the existing Particle.
      */
     public static void addOrReplaceParticle(NamespacedKey namespacedKey, Particle particle) {
-        particles.put(namespacedKey, particle);
+        synchronized (particles) {
+            particles.put(namespacedKey, particle);
+        }
+    }
+
+    /*
+    Removes the Particle with the specified key.
+     */
+    public static void removeParticle(NamespacedKey namespacedKey) {
+        synchronized (particles) {
+            particles.remove(namespacedKey);
+        }
     }
 
     /*
@@ -68,8 +84,8 @@ public class Particles {
     else it does nothing.
      */
     public static void addParticle(NamespacedKey namespacedKey, Particle particle) {
-        if (!particles.containsKey(namespacedKey)) {
-            particles.put(namespacedKey, particle);
+        synchronized (particles) {
+            particles.putIfAbsent(namespacedKey, particle);
         }
     }
 
@@ -104,17 +120,25 @@ public class Particles {
         if(file.exists()){
             JsonNode node = JacksonUtil.getObjectMapper().readTree(file);
             node.fields().forEachRemaining(entry -> {
-                NamespacedKey namespacedKey = new NamespacedKey(namespace, entry.getKey());
-                Particle particle = JacksonUtil.getObjectMapper().convertValue(entry.getValue(), Particle.class);
+                Particle particle = parse(namespace, entry.getKey(), entry.getValue());
                 if(particle != null) {
-                    particle.setNamespacedKey(namespacedKey);
-                    if (namespacedKey.equals(particle.getSuperParticle())) {
-                        particle.setSuperParticle(null);
-                    }
-                    addParticle(namespacedKey, particle);
+                    addParticle(particle.getNamespacedKey(), particle);
                 }
             });
         }
+        ParticleReloader.watch(plugin, namespace, file.getParentFile());
+    }
+
+    static Particle parse(String namespace, String key, JsonNode value) {
+        NamespacedKey namespacedKey = new NamespacedKey(namespace, key);
+        Particle particle = JacksonUtil.getObjectMapper().convertValue(value, Particle.class);
+        if (particle != null) {
+            particle.setNamespacedKey(namespacedKey);
+            if (namespacedKey.equals(particle.getSuperParticle())) {
+                particle.setSuperParticle(null);
+            }
+        }
+        return particle;
     }
 
     public static class Serializer extends StdSerializer<Particles> {
@@ -130,7 +154,7 @@ public class Particles {
         @Override
         public void serialize(Particles value, JsonGenerator gen, SerializerProvider provider) throws IOException {
             gen.writeStartObject();
-            for (Map.Entry<NamespacedKey, Particle> entry : particles.entrySet()) {
+            for (Map.Entry<NamespacedKey, Particle> entry : getParticles().entrySet()) {
                 if(entry.getKey().getNamespace().equals(value.namespace)){
                     gen.writeObjectField(entry.getKey().getKey(), entry.getValue());
                 }
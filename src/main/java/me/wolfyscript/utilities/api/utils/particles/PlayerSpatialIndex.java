@@ -0,0 +1,202 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import me.wolfyscript.utilities.api.utils.LongObjectHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * An immutable index of the online players, bucketed by world and chunk.
+ * <p>
+ * It is built on the main thread, so the positions of the players can be read from any thread afterwards.
+ * Lookups only check the chunks that overlap the radius, so the cost doesn't depend on the amount of online players.
+ */
+public class PlayerSpatialIndex {
+
+    private static final PlayerSpatialIndex EMPTY = new PlayerSpatialIndex(Collections.emptyMap(), Collections.emptyMap(), 0);
+
+    private final Map<UUID, LongObjectHashMap<List<Viewer>>> worlds;
+    private final Map<UUID, Viewer> players;
+    private final int size;
+
+    private PlayerSpatialIndex(Map<UUID, LongObjectHashMap<List<Viewer>>> worlds, Map<UUID, Viewer> players, int size) {
+        this.worlds = worlds;
+        this.players = players;
+        this.size = size;
+    }
+
+    public static PlayerSpatialIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the index from the current positions of the online players. Must be called on the main thread.
+     *
+     * @return the new index
+     */
+    public static PlayerSpatialIndex build() {
+        Map<UUID, LongObjectHashMap<List<Viewer>>> worlds = new HashMap<>();
+        Map<UUID, Viewer> players = new HashMap<>();
+        Location location = new Location(null, 0, 0, 0);
+        int size = 0;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            player.getLocation(location);
+            World world = location.getWorld();
+            if (world == null) continue;
+            LongObjectHashMap<List<Viewer>> chunks = worlds.computeIfAbsent(world.getUID(), uuid -> new LongObjectHashMap<>());
+            long chunkKey = chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            List<Viewer> viewers = chunks.get(chunkKey);
+            if (viewers == null) {
+                viewers = new ArrayList<>(2);
+                chunks.put(chunkKey, viewers);
+            }
+            Viewer viewer = new Viewer(player, world, location.getX(), location.getY(), location.getZ());
+            viewers.add(viewer);
+            if (player.isValid()) {
+                players.put(player.getUniqueId(), viewer);
+            }
+            size++;
+        }
+        return new PlayerSpatialIndex(worlds, players, size);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the amount of indexed players
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies the position of the player at the time the index was built into the location, so it can be reused.
+     *
+     * @param player   the uuid of the player
+     * @param location the location the position is copied to
+     * @return the location or null if the player wasn't online or valid (e.g. dead)
+     */
+    @Nullable
+    public Location getLocation(UUID player, Location location) {
+        Viewer viewer = players.get(player);
+        if (viewer == null) return null;
+        location.setWorld(viewer.world);
+        location.setX(viewer.x);
+        location.setY(viewer.y);
+        location.setZ(viewer.z);
+        return location;
+    }
+
+    /**
+     * @param world  the world
+     * @param x      the x coordinate
+     * @param y      the y coordinate
+     * @param z      the z coordinate
+     * @param radius the maximum distance of the viewers
+     * @return true if there is at least one player in the radius
+     */
+    public boolean hasViewers(World world, double x, double y, double z, double radius) {
+        return forEachViewer(world, x, y, z, radius, null);
+    }
+
+    /**
+     * @param world  the world
+     * @param x      the x coordinate
+     * @param y      the y coordinate
+     * @param z      the z coordinate
+     * @param radius the maximum distance of the viewers
+     * @return the players in the radius
+     */
+    public List<Viewer> getViewers(World world, double x, double y, double z, double radius) {
+        List<Viewer> result = new ArrayList<>();
+        forEachViewer(world, x, y, z, radius, result);
+        return result;
+    }
+
+    /**
+     * Adds the players in the radius to the list, so the list can be reused.
+     *
+     * @param world  the world
+     * @param x      the x coordinate
+     * @param y      the y coordinate
+     * @param z      the z coordinate
+     * @param radius the maximum distance of the viewers
+     * @param result the list the players are added to
+     * @return true if at least one player was added
+     */
+    public boolean collectViewers(World world, double x, double y, double z, double radius, List<Viewer> result) {
+        return forEachViewer(world, x, y, z, radius, result);
+    }
+
+    private boolean forEachViewer(World world, double x, double y, double z, double radius, List<Viewer> result) {
+        LongObjectHashMap<List<Viewer>> chunks = worlds.get(world.getUID());
+        if (chunks == null) return false;
+        double radiusSquared = radius * radius;
+        int minX = (int) Math.floor(x - radius) >> 4;
+        int maxX = (int) Math.floor(x + radius) >> 4;
+        int minZ = (int) Math.floor(z - radius) >> 4;
+        int maxZ = (int) Math.floor(z + radius) >> 4;
+        boolean found = false;
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                List<Viewer> viewers = chunks.get(chunkKey(chunkX, chunkZ));
+                if (viewers == null) continue;
+                for (Viewer viewer : viewers) {
+                    if (viewer.distanceSquared(x, y, z) <= radiusSquared) {
+                        if (result == null) return true;
+                        result.add(viewer);
+                        found = true;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A player and its position at the time the index was built.
+     */
+    public static class Viewer {
+
+        private final Player player;
+        private final World world;
+        private final double x, y, z;
+
+        private Viewer(Player player, World world, double x, double y, double z) {
+            this.player = player;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getZ() {
+            return z;
+        }
+
+        public double distanceSquared(double x, double y, double z) {
+            double dx = this.x - x;
+            double dy = this.y - y;
+            double dz = this.z - z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
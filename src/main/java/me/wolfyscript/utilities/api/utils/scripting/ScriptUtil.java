@@ -5,13 +5,35 @@ import javax.script.ScriptEngineManager;
 
 public class ScriptUtil {
 
-    private static final ScriptEngine engine = new ScriptEngineManager().getEngineByName("Nashorn");
+    private static final ScriptEngineManager manager = new ScriptEngineManager();
+    private static final ScriptEngine engine = manager.getEngineByName("Nashorn");
+
+    /**
+     * Each thread gets its own engine, so scripts can be evaluated and invoked without synchronization.
+     */
+    private static final ThreadLocal<ScriptEngine> threadEngines = ThreadLocal.withInitial(() -> manager.getEngineByName("Nashorn"));
 
     public ScriptUtil() {
 
     }
 
+    /**
+     * The engine shared by all threads. All the scripts that are evaluated by it share the same global scope!
+     *
+     * @return the global engine or null if Nashorn isn't available
+     * @deprecated Use {@link #getThreadEngine()} instead, which is confined to the current thread.
+     */
+    @Deprecated
     public static ScriptEngine getEngine() {
         return engine;
     }
+
+    /**
+     * Gets the engine of the current thread. It must not be shared with other threads.
+     *
+     * @return the engine of the current thread or null if Nashorn isn't available
+     */
+    public static ScriptEngine getThreadEngine() {
+        return threadEngines.get();
+    }
 }
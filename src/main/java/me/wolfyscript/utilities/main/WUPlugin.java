@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.config.ConfigAPI;
 import me.wolfyscript.utilities.api.custom_items.CustomItems;
+import me.wolfyscript.utilities.api.custom_items.LinkedItemCache;
 import me.wolfyscript.utilities.api.custom_items.api_references.*;
 import me.wolfyscript.utilities.api.language.Language;
 import me.wolfyscript.utilities.api.language.LanguageAPI;
@@ -13,11 +14,16 @@ import me.wolfyscript.utilities.api.utils.inventory.ItemCategory;
 import me.wolfyscript.utilities.api.utils.json.jackson.JacksonUtil;
 import me.wolfyscript.utilities.api.utils.json.jackson.serialization.*;
 import me.wolfyscript.utilities.api.utils.particles.ParticleEffects;
+import me.wolfyscript.utilities.api.utils.particles.ParticleEngine;
+import me.wolfyscript.utilities.api.utils.particles.ParticleReloader;
 import me.wolfyscript.utilities.api.utils.particles.Particles;
 import me.wolfyscript.utilities.main.commands.InputCommand;
 import me.wolfyscript.utilities.main.commands.SpawnParticleEffectCommand;
 import me.wolfyscript.utilities.main.listeners.BlockListener;
+import me.wolfyscript.utilities.main.listeners.ChunkListener;
 import me.wolfyscript.utilities.main.listeners.EquipListener;
+import me.wolfyscript.utilities.main.listeners.ParticleEffectListener;
+import me.wolfyscript.utilities.main.listeners.PluginListener;
 import me.wolfyscript.utilities.main.listeners.custom_item.CustomDurabilityListener;
 import me.wolfyscript.utilities.main.listeners.custom_item.CustomParticleListener;
 import me.wolfyscript.utilities.main.messages.InputButtonMessage;
@@ -62,6 +68,9 @@ public class WUPlugin extends JavaPlugin {
     public void onDisable() {
         wolfyUtilities.getConfigAPI().saveConfigs();
         WolfyUtilities.getCustomItems().save();
+        CustomItems.getBlockStoragePersistence().close();
+        ParticleReloader.stop();
+        ParticleEngine.stop();
         try {
             particlesConfig.save(false);
             particleEffectsConfig.save(false);
@@ -103,6 +112,12 @@ public class WUPlugin extends JavaPlugin {
         module.addDeserializer(WolfyUtilitiesRef.class, new WolfyUtilitiesRef.Serialization());
         JacksonUtil.registerModule(module);
 
+        //Reference Resolvers
+        APIReferenceResolvers.register(new WolfyUtilitiesRef.Resolver());
+        APIReferenceResolvers.register(new ItemsAdderRef.Resolver());
+        APIReferenceResolvers.register(new OraxenRef.Resolver());
+        APIReferenceResolvers.register(new MythicMobsRef.Resolver());
+
         //Register custom item data
     }
 
@@ -126,11 +141,19 @@ public class WUPlugin extends JavaPlugin {
             e.printStackTrace();
         }
 
+        APIReferenceResolvers.refresh();
         WolfyUtilities.getCustomItems().load();
         Bukkit.getPluginManager().registerEvents(new CustomDurabilityListener(), this);
         Bukkit.getPluginManager().registerEvents(new CustomParticleListener(), this);
         Bukkit.getPluginManager().registerEvents(new BlockListener(), this);
+        Bukkit.getPluginManager().registerEvents(new ChunkListener(), this);
         Bukkit.getPluginManager().registerEvents(new EquipListener(), this);
+        Bukkit.getPluginManager().registerEvents(new PluginListener(), this);
+        Bukkit.getPluginManager().registerEvents(new ParticleEffectListener(), this);
+        LinkedItemCache.registerReloadEvent(this, "ItemsAdder", "dev.lone.itemsadder.api.Events.ItemsAdderLoadDataEvent");
+        LinkedItemCache.registerReloadEvent(this, "ItemsAdder", "dev.lone.itemsadder.api.ItemsAdderFirstLoadEvent");
+        LinkedItemCache.registerReloadEvent(this, "Oraxen", "io.th0rgal.oraxen.events.OraxenItemsLoadedEvent");
+        LinkedItemCache.registerReloadEvent(this, "MythicMobs", "io.lumine.xikage.mythicmobs.api.bukkit.events.MythicReloadedEvent");
         Bukkit.getPluginManager().registerEvents(new WolfyUtilities(this), this);
         Bukkit.getServer().getPluginCommand("particle_effect").setExecutor(new SpawnParticleEffectCommand());
         Bukkit.getServer().getPluginCommand("wui").setExecutor(new InputCommand());
@@ -149,6 +172,8 @@ public class WUPlugin extends JavaPlugin {
         saveResource("particles/particle_effects.json", true);
         saveResource("particles/README.txt", true);
 
+        ParticleEngine.start(this);
+        ParticleReloader.start(this);
         try {
             loadParticleEffects();
         } catch (IOException e) {
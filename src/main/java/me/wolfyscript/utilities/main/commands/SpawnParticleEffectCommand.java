@@ -4,7 +4,11 @@ import me.wolfyscript.utilities.api.WolfyUtilities;
 import me.wolfyscript.utilities.api.utils.NamespacedKey;
 import me.wolfyscript.utilities.api.utils.chat.ClickData;
 import me.wolfyscript.utilities.api.utils.chat.ClickEvent;
+import me.wolfyscript.utilities.api.utils.particles.EffectOwner;
+import me.wolfyscript.utilities.api.utils.particles.ParticleBudget;
+import me.wolfyscript.utilities.api.utils.particles.ParticleEffectRegistry;
 import me.wolfyscript.utilities.api.utils.particles.ParticleEffects;
+import me.wolfyscript.utilities.api.utils.particles.ParticleEngine;
 import me.wolfyscript.utilities.main.WUPlugin;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
@@ -20,10 +24,16 @@ import java.util.*;
 
 public class SpawnParticleEffectCommand implements CommandExecutor, TabCompleter {
 
-    private final List<String> COMMANDS = Arrays.asList("spawn", "stop");
+    private final List<String> COMMANDS = Arrays.asList("spawn", "stop", "stats");
 
     @Override
     public boolean onCommand(CommandSender commandSender, Command command, String s, String[] args) {
+        if (args.length > 0 && args[0].equalsIgnoreCase("stats")) {
+            if (WolfyUtilities.hasPermission(commandSender, "wolfyutilities.command.particle_effect.stats")) {
+                sendStats(commandSender);
+            }
+            return true;
+        }
         if (commandSender instanceof Player) {
             Player player = (Player) commandSender;
             if (args.length > 0) {
@@ -84,6 +94,24 @@ public class SpawnParticleEffectCommand implements CommandExecutor, TabCompleter
         return false;
     }
 
+    private void sendStats(CommandSender sender) {
+        sender.sendMessage(WolfyUtilities.translateColorCodes("&e--- &6Particle Effects &e---"));
+        Map<EffectOwner.Type, Integer> owners = ParticleEffectRegistry.countByOwnerType();
+        StringBuilder ownerCounts = new StringBuilder();
+        for (EffectOwner.Type type : EffectOwner.Type.values()) {
+            ownerCounts.append(" &e").append(type.name().toLowerCase(Locale.ROOT)).append(": &6").append(owners.getOrDefault(type, 0));
+        }
+        sender.sendMessage(WolfyUtilities.translateColorCodes("&eActive instances: &6" + ParticleEffectRegistry.size() + ownerCounts + " &7(dormant: " + ParticleEffectRegistry.countDormant() + ")"));
+        List<Map.Entry<NamespacedKey, Integer>> effects = new ArrayList<>(ParticleEffectRegistry.countByEffect().entrySet());
+        effects.sort(Map.Entry.<NamespacedKey, Integer>comparingByValue().reversed());
+        for (Map.Entry<NamespacedKey, Integer> entry : effects) {
+            sender.sendMessage(WolfyUtilities.translateColorCodes("&7 - &e" + entry.getKey() + ": &6" + entry.getValue()));
+        }
+        sender.sendMessage(WolfyUtilities.translateColorCodes("&eSpawn rate: &6" + ParticleBudget.getLastSpawned() * 20 + "&e particles/s &7(dropped: " + ParticleBudget.getLastDropped() + ", degraded: " + ParticleBudget.getLastDegraded() + " in the last tick)"));
+        sender.sendMessage(WolfyUtilities.translateColorCodes("&eEmitted effect ticks: &6" + ParticleEngine.getEmitted() + "&e, culled: &6" + ParticleEngine.getCulled()));
+        sender.sendMessage(WolfyUtilities.translateColorCodes("&eLeaked handles: &6" + ParticleEffectRegistry.countLeaked()));
+    }
+
     @Override
     public List<String> onTabComplete(@Nonnull CommandSender commandSender, @Nonnull Command command, @Nonnull String s, @Nonnull String[] args) {
         List<String> results = new ArrayList<>();
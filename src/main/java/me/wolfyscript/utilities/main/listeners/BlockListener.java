@@ -3,10 +3,9 @@ package me.wolfyscript.utilities.main.listeners;
 import me.wolfyscript.utilities.api.custom_items.CustomItem;
 import me.wolfyscript.utilities.api.custom_items.CustomItemBreakEvent;
 import me.wolfyscript.utilities.api.custom_items.CustomItemPlaceEvent;
+import me.wolfyscript.utilities.api.custom_items.CustomItemResolver;
 import me.wolfyscript.utilities.api.custom_items.CustomItems;
-import me.wolfyscript.utilities.api.utils.NamespacedKey;
 import me.wolfyscript.utilities.api.utils.inventory.ItemUtils;
-import me.wolfyscript.utilities.main.WUPlugin;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
@@ -25,8 +24,6 @@ import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BlockStateMeta;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataType;
 
 import java.util.HashMap;
 import java.util.Iterator;
@@ -213,7 +210,7 @@ public class BlockListener implements Listener {
     @EventHandler(priority = EventPriority.HIGH)
     public void onBlockPlace(BlockPlaceEvent event) {
         if (!event.isCancelled() && event.canBuild()) {
-            CustomItem customItem = CustomItems.getCustomItem(NamespacedKey.getByString(getCustomItemID(event.getItemInHand())));
+            CustomItem customItem = CustomItemResolver.getCustomItem(event.getItemInHand());
             if (!ItemUtils.isAirOrNull(customItem) && customItem.getItemStack().getType().isBlock()) {
                 if (customItem.isBlockPlacement()) {
                     event.setCancelled(true);
@@ -237,7 +234,7 @@ public class BlockListener implements Listener {
     @EventHandler(priority = EventPriority.HIGH)
     public void onBlockPlaceMulti(BlockMultiPlaceEvent event) {
         if (!event.isCancelled()) {
-            CustomItem customItem = CustomItems.getCustomItem(me.wolfyscript.utilities.api.utils.NamespacedKey.getByString(getCustomItemID(event.getItemInHand())));
+            CustomItem customItem = CustomItemResolver.getCustomItem(event.getItemInHand());
             if (!ItemUtils.isAirOrNull(customItem)) {
                 if (customItem.isBlockPlacement()) {
                     event.setCancelled(true);
@@ -247,14 +244,4 @@ public class BlockListener implements Listener {
             }
         }
     }
-
-    private String getCustomItemID(ItemStack itemStack) {
-        if (!ItemUtils.isAirOrNull(itemStack)) {
-            ItemMeta itemMeta = itemStack.getItemMeta();
-            if (itemMeta != null && itemMeta.getPersistentDataContainer().has(new org.bukkit.NamespacedKey(WUPlugin.getInstance(), "custom_item"), PersistentDataType.STRING)) {
-                return itemMeta.getPersistentDataContainer().get(new org.bukkit.NamespacedKey(WUPlugin.getInstance(), "custom_item"), PersistentDataType.STRING);
-            }
-        }
-        return "";
-    }
 }
@@ -0,0 +1,32 @@
+package me.wolfyscript.utilities.main.listeners;
+
+import me.wolfyscript.utilities.api.custom_items.CustomItems;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Loads and releases the stored CustomItem blocks together with their chunks.
+ */
+public class ChunkListener implements Listener {
+
+    @EventHandler
+    public void onChunkLoad(ChunkLoadEvent event) {
+        CustomItems.loadStoredBlocks(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        CustomItems.unloadStoredBlocks(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        if (!event.isCancelled()) {
+            CustomItems.unloadStoredBlocks(event.getWorld());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package me.wolfyscript.utilities.main.listeners;
+
+import me.wolfyscript.utilities.api.utils.particles.ParticleEffectRegistry;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Removes the active particle effects together with their owners.
+ */
+public class ParticleEffectListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        ParticleEffectRegistry.stopPlayer(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        ParticleEffectRegistry.stopChunk(event.getWorld().getUID(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        if (!event.isCancelled()) {
+            ParticleEffectRegistry.stopWorld(event.getWorld().getUID());
+        }
+    }
+}
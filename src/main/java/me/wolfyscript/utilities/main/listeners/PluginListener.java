@@ -0,0 +1,27 @@
+package me.wolfyscript.utilities.main.listeners;
+
+import me.wolfyscript.utilities.api.custom_items.LinkedItemCache;
+import me.wolfyscript.utilities.api.custom_items.api_references.APIReferenceResolvers;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+
+/**
+ * Keeps the integrations with other plugins up to date, when they are enabled or disabled.
+ */
+public class PluginListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {
+        APIReferenceResolvers.refresh();
+        LinkedItemCache.invalidate(event.getPlugin().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        APIReferenceResolvers.refresh();
+        LinkedItemCache.invalidate(event.getPlugin().getName());
+    }
+}
@@ -20,7 +20,7 @@ function onLocation(location, particleData, tick) {
 }
 
 /*
-block - the block the effect is spawned on.
+block - the block the effect is spawned on. Effects that run in the background get a snapshot (BlockState) of the block instead.
 location - the location of the block
 particleData - the current data of the particle
 tick - the current tick of the particle. The tick is being increased each in-game tick and can reach a maximum of the duration of the effect.
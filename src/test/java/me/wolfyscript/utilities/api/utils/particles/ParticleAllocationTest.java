@@ -0,0 +1,63 @@
+package me.wolfyscript.utilities.api.utils.particles;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.util.Vector;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that spawning a particle without a script doesn't allocate, once the buffer of the engine is large enough.
+ */
+public class ParticleAllocationTest {
+
+    private static final int SPAWNS = 100000;
+
+    private static final long[] allocated = new long[1];
+
+    @Test
+    public void spawnOnLocationDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class[]{World.class}, (proxy, method, args) -> {
+            if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+            if (method.getName().equals("equals")) return proxy == args[0];
+            return null;
+        });
+        Location location = new Location(world, 10, 64, 10);
+        Particle particle = new Particle(org.bukkit.Particle.FLAME, new Vector(0, 1, 0), 2, new Vector(0.1, 0.1, 0.1), 0.01);
+
+        //The first run grows the buffer and lets the JIT compile the spawn methods.
+        for (int i = 0; i < 5; i++) {
+            ParticleEngine.collect(() -> spawn(particle, location));
+        }
+        //The allocations of the measurement itself.
+        ParticleEngine.collect(() -> {
+            long start = threadBean.getThreadAllocatedBytes(threadId);
+            allocated[0] = threadBean.getThreadAllocatedBytes(threadId) - start;
+        });
+        long baseline = allocated[0];
+        ParticleEngine.collect(() -> {
+            long start = threadBean.getThreadAllocatedBytes(threadId);
+            spawn(particle, location);
+            allocated[0] = threadBean.getThreadAllocatedBytes(threadId) - start;
+        });
+        long bytes = allocated[0] - baseline;
+        //Less than a byte per spawn, so no spawn allocated anything.
+        assertTrue("Spawning " + SPAWNS + " particles allocated " + bytes + " bytes", bytes < SPAWNS);
+    }
+
+    private static void spawn(Particle particle, Location location) {
+        for (int tick = 0; tick < SPAWNS; tick++) {
+            particle.spawnOnLocation(location, tick);
+        }
+    }
+}